@@ -0,0 +1,77 @@
+package com.hepsiemlak.todo.benchmark;
+
+import com.hepsiemlak.todo.util.JwtUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Field;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A claims cache of 0 evicts every entry on load, so each call pays for signature verification.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtUtilBenchmark {
+
+    private static final String SECRET = "dGhpcy1pcy1hLXRlc3Qtc2VjcmV0LXdpdGgtYXQtbGVhc3QtMjU2LWJpdHMtb2Yta2V5";
+
+    private static final String USERNAME = "benchmark";
+
+    @Param({"0", "10000"})
+    private long claimsCacheSize;
+
+    private JwtUtil jwtUtil;
+
+    private long lastModifiedDate;
+
+    private String authorization;
+
+    @Setup
+    public void setUp() throws NoSuchFieldException, IllegalAccessException {
+        jwtUtil = new JwtUtil();
+        setField("secret", SECRET);
+        setField("keys", "");
+        setField("activeKeyId", "default");
+        setField("expiration", TimeUnit.HOURS.toMillis(1));
+        setField("claimsCacheMaximumSize", claimsCacheSize);
+        jwtUtil.init();
+
+        lastModifiedDate = System.currentTimeMillis();
+        authorization = "Bearer " + jwtUtil.generateToken(USERNAME, lastModifiedDate);
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtUtil.generateToken(USERNAME, lastModifiedDate);
+    }
+
+    @Benchmark
+    public boolean validateToken() {
+        return jwtUtil.validateToken(authorization, USERNAME, lastModifiedDate);
+    }
+
+    @Benchmark
+    public String extractUsernameByAuthorization() {
+        return jwtUtil.extractUsernameByAuthorization(authorization);
+    }
+
+    private void setField(String name, Object value) throws NoSuchFieldException, IllegalAccessException {
+        Field field = JwtUtil.class.getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(jwtUtil, value);
+    }
+}
@@ -0,0 +1,78 @@
+package com.hepsiemlak.todo.benchmark;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import com.hepsiemlak.todo.aspect.Log;
+import com.hepsiemlak.todo.aspect.LogAspect;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.LoggerFactory;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Compares a {@code @Log} method against an un-annotated one on the same proxy, with INFO on
+ * and off. Log events go to a no-op appender, so the numbers are the aspect's own cost.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dlogback.configurationFile=logback-benchmark.xml")
+public class LogAspectBenchmark {
+
+    @Param({"INFO", "WARN"})
+    private String level;
+
+    private Target proxy;
+
+    private List<String> items;
+
+    @Setup
+    public void setUp() {
+        ((Logger) LoggerFactory.getLogger(Target.class)).setLevel(Level.toLevel(level));
+
+        AspectJProxyFactory factory = new AspectJProxyFactory(new Target());
+        factory.setProxyTargetClass(true);
+        factory.addAspect(new LogAspect());
+        proxy = factory.getProxy();
+
+        items = IntStream.range(0, 100).mapToObj(i -> "item-" + i).collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public int annotated() {
+        return proxy.annotated("benchmark", items);
+    }
+
+    @Benchmark
+    public int plain() {
+        return proxy.plain("benchmark", items);
+    }
+
+    public static class Target {
+
+        @Log
+        public int annotated(String username, List<String> items) {
+            return username.length() + items.size();
+        }
+
+        public int plain(String username, List<String> items) {
+            return username.length() + items.size();
+        }
+    }
+}
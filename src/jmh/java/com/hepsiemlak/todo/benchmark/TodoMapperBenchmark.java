@@ -0,0 +1,65 @@
+package com.hepsiemlak.todo.benchmark;
+
+import com.hepsiemlak.todo.entity.Todo;
+import com.hepsiemlak.todo.mapping.TodoMapper;
+import com.hepsiemlak.todo.mapping.TodoMapperImpl;
+import com.hepsiemlak.todo.model.todo.TodoResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TodoMapperBenchmark {
+
+    @Param({"20", "1000", "10000"})
+    private int pageSize;
+
+    private final TodoMapper todoMapper = new TodoMapperImpl();
+
+    private Page<Todo> page;
+
+    @Setup
+    public void setUp() {
+        page = todoPage(pageSize);
+    }
+
+    @Benchmark
+    public Page<TodoResponse> toPageResponse() {
+        return todoMapper.toPageResponse(page);
+    }
+
+    static Page<Todo> todoPage(int size) {
+        List<Todo> todos = IntStream.range(0, size)
+                .mapToObj(i -> Todo.builder()
+                        .id("todo-" + i)
+                        .title("Todo " + i)
+                        .description("Description of todo " + i)
+                        .completed(i % 2 == 0)
+                        .username("benchmark")
+                        .createdDate(1_700_000_000_000L + i)
+                        .build())
+                .collect(Collectors.toList());
+        return new PageImpl<>(todos, PageRequest.of(0, size), size * 10L);
+    }
+}
@@ -0,0 +1,113 @@
+package com.hepsiemlak.todo.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histograms and error counts per endpoint for one run.
+ */
+public class LoadReport {
+
+    private static final long HIGHEST_TRACKABLE_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private final Map<String, Histogram> latencies = new ConcurrentSkipListMap<>();
+    private final Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+    private long elapsedNanos;
+
+    public void record(String endpoint, long nanos, boolean success) {
+        latencies.computeIfAbsent(endpoint, key -> new ConcurrentHistogram(HIGHEST_TRACKABLE_NANOS, 3))
+                .recordValue(Math.min(nanos, HIGHEST_TRACKABLE_NANOS));
+        if (!success) {
+            errors.computeIfAbsent(endpoint, key -> new LongAdder()).increment();
+        }
+    }
+
+    void finish(long elapsedNanos) {
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public long errorCount() {
+        return errors.values().stream().mapToLong(LongAdder::sum).sum();
+    }
+
+    public void print(PrintStream out) {
+        out.printf("%-8s %8s %10s %9s %9s %9s %9s %9s %7s%n",
+                "endpoint", "count", "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms", "errors");
+        latencies.forEach((endpoint, histogram) -> out.printf("%-8s %8d %10.1f %9.2f %9.2f %9.2f %9.2f %9.2f %7d%n",
+                endpoint,
+                histogram.getTotalCount(),
+                histogram.getTotalCount() / (elapsedNanos / 1e9),
+                millis(histogram.getValueAtPercentile(50)),
+                millis(histogram.getValueAtPercentile(90)),
+                millis(histogram.getValueAtPercentile(99)),
+                millis(histogram.getValueAtPercentile(99.9)),
+                millis(histogram.getMaxValue()),
+                errors.getOrDefault(endpoint, new LongAdder()).sum()));
+    }
+
+    /**
+     * Writes the run in the baseline format, so a new baseline is a copy of this file.
+     */
+    public void write(Path path) throws IOException {
+        Properties properties = new Properties();
+        latencies.forEach((endpoint, histogram) -> {
+            properties.setProperty(endpoint + ".p99", format(millis(histogram.getValueAtPercentile(99))));
+            properties.setProperty(endpoint + ".throughput", format(histogram.getTotalCount() / (elapsedNanos / 1e9)));
+        });
+        Files.createDirectories(path.toAbsolutePath().getParent());
+        try (Writer writer = Files.newBufferedWriter(path)) {
+            properties.store(writer, "p99 latency in ms and throughput in req/s per endpoint");
+        }
+    }
+
+    /**
+     * Endpoints whose p99 is above the baseline by more than the tolerance and the floor, the
+     * floor keeping sub-millisecond jitter from failing the run.
+     */
+    public List<String> regressionsAgainst(String baselineResource, double tolerance, double floorMillis) throws IOException {
+        Properties baseline = new Properties();
+        try (InputStream in = LoadReport.class.getClassLoader().getResourceAsStream(baselineResource)) {
+            if (in == null) {
+                throw new IllegalStateException("Baseline " + baselineResource + " not found on the classpath");
+            }
+            baseline.load(in);
+        }
+
+        List<String> regressions = new ArrayList<>();
+        latencies.forEach((endpoint, histogram) -> {
+            String expected = baseline.getProperty(endpoint + ".p99");
+            if (expected == null) {
+                return;
+            }
+            double allowed = Double.parseDouble(expected);
+            double actual = millis(histogram.getValueAtPercentile(99));
+            if (actual > allowed * (1 + tolerance) && actual - allowed > floorMillis) {
+                regressions.add(String.format("%s p99 %.2f ms exceeds baseline %.2f ms", endpoint, actual, allowed));
+            }
+        });
+        return regressions;
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+
+    private static String format(double value) {
+        return String.format("%.2f", value);
+    }
+}
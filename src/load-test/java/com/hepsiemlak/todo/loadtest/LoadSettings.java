@@ -0,0 +1,20 @@
+package com.hepsiemlak.todo.loadtest;
+
+import lombok.Getter;
+
+/**
+ * Load shape and regression thresholds, overridable with {@code -Dload-test.*} system properties.
+ */
+@Getter
+public class LoadSettings {
+
+    private final int users = Integer.getInteger("load-test.users", 200);
+    private final int warmupUsers = Integer.getInteger("load-test.warmup-users", 50);
+    private final int concurrency = Integer.getInteger("load-test.concurrency", 16);
+    private final int todosPerUser = Integer.getInteger("load-test.todos-per-user", 20);
+    private final int pageSize = Integer.getInteger("load-test.page-size", 10);
+    private final double p99Tolerance = Double.parseDouble(System.getProperty("load-test.p99-tolerance", "0.25"));
+    private final double p99FloorMillis = Double.parseDouble(System.getProperty("load-test.p99-floor-ms", "5"));
+    private final String baseline = System.getProperty("load-test.baseline", "load-test-baseline.properties");
+    private final String result = System.getProperty("load-test.result", "target/load-test/result.properties");
+}
@@ -0,0 +1,114 @@
+package com.hepsiemlak.todo.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Drives each virtual user through register, login, creating its todos, paging through them,
+ * updating and deleting each one. Users run {@code concurrency} at a time.
+ */
+public class TodoLoadDriver {
+
+    private static final String PASSWORD = "load-test-password";
+
+    private final URI baseUri;
+    private final LoadSettings settings;
+    private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    public TodoLoadDriver(URI baseUri, LoadSettings settings) {
+        this.baseUri = baseUri;
+        this.settings = settings;
+    }
+
+    public LoadReport run(int users) throws Exception {
+        LoadReport report = new LoadReport();
+        String run = UUID.randomUUID().toString().substring(0, 8);
+        ExecutorService executor = Executors.newFixedThreadPool(settings.getConcurrency());
+        long start = System.nanoTime();
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < users; i++) {
+                String username = "load-" + run + "-" + i + "@example.com";
+                futures.add(executor.submit(() -> {
+                    runUser(username, report);
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        report.finish(System.nanoTime() - start);
+        return report;
+    }
+
+    private void runUser(String username, LoadReport report) throws IOException, InterruptedException {
+        String credentials = json(Map.of("username", username, "password", PASSWORD));
+        send(report, "register", post("/api/v1/users/register", credentials, null));
+        HttpResponse<String> login = send(report, "login", post("/api/v1/users/login", credentials, null));
+        String authorization = "Bearer " + login.headers().firstValue("Access-Token").orElseThrow();
+
+        for (int i = 0; i < settings.getTodosPerUser(); i++) {
+            send(report, "create", post("/api/v1/todos",
+                    json(Map.of("title", "Todo " + i, "description", "Created by the load test")), authorization));
+        }
+
+        List<String> ids = new ArrayList<>();
+        int page = 0;
+        boolean last;
+        do {
+            HttpResponse<String> response = send(report, "list", request(
+                    "/api/v1/todos?page=" + page++ + "&size=" + settings.getPageSize(), authorization).GET().build());
+            JsonNode body = objectMapper.readTree(response.body());
+            body.path("content").forEach(todo -> ids.add(todo.path("id").asText()));
+            last = body.path("last").asBoolean(true);
+        } while (!last);
+
+        for (String id : ids) {
+            send(report, "update", request("/api/v1/todos/" + id, authorization)
+                    .PUT(HttpRequest.BodyPublishers.ofString(json(Map.of("completed", true))))
+                    .build());
+        }
+        for (String id : ids) {
+            send(report, "delete", request("/api/v1/todos/" + id, authorization).DELETE().build());
+        }
+    }
+
+    private HttpResponse<String> send(LoadReport report, String endpoint, HttpRequest request)
+            throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        report.record(endpoint, System.nanoTime() - start, response.statusCode() / 100 == 2);
+        return response;
+    }
+
+    private HttpRequest post(String path, String body, String authorization) {
+        return request(path, authorization).POST(HttpRequest.BodyPublishers.ofString(body)).build();
+    }
+
+    private HttpRequest.Builder request(String path, String authorization) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(baseUri.resolve(path))
+                .header("Content-Type", "application/json");
+        return authorization != null ? builder.header("Authorization", authorization) : builder;
+    }
+
+    private String json(Map<String, Object> body) throws IOException {
+        return objectMapper.writeValueAsString(body);
+    }
+}
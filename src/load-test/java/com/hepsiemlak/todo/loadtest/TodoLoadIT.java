@@ -0,0 +1,66 @@
+package com.hepsiemlak.todo.loadtest;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ActiveProfilesResolver;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the app on the in-memory repositories and fails when an endpoint's p99 regresses past
+ * the baseline. BCrypt runs at its lowest cost so login does not drown out the todo endpoints.
+ * Profiles listed in {@code -Dload-test.profiles} run on top of {@code memory}, so a serving mode
+ * such as {@code virtual-threads} can be measured the same way.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "jwt.secret=bG9hZC10ZXN0LXNlY3JldC13aXRoLWF0LWxlYXN0LTI1Ni1iaXRzLW9mLWtleS1tYXRlcmlhbA==",
+        "jwt.expiration=3600000",
+        "jwt.refresh-expiration=86400000",
+        "password.bcrypt-strength=4",
+        "password.hashing.queue-capacity=1024",
+        "token-reaper.enabled=false",
+        "logging.level.com.hepsiemlak.todo=WARN"
+})
+@ActiveProfiles(resolver = TodoLoadIT.Profiles.class)
+class TodoLoadIT {
+
+    @LocalServerPort
+    private int port;
+
+    @Test
+    void it_should_keep_p99_within_baseline() throws Exception {
+        LoadSettings settings = new LoadSettings();
+        TodoLoadDriver driver = new TodoLoadDriver(URI.create("http://localhost:" + port), settings);
+
+        driver.run(settings.getWarmupUsers());
+        LoadReport report = driver.run(settings.getUsers());
+
+        report.print(System.out);
+        report.write(Path.of(settings.getResult()));
+
+        assertEquals(0, report.errorCount(), "requests failed during the run");
+        List<String> regressions = report.regressionsAgainst(settings.getBaseline(),
+                settings.getP99Tolerance(), settings.getP99FloorMillis());
+        assertTrue(regressions.isEmpty(), String.join("\n", regressions));
+    }
+
+    static class Profiles implements ActiveProfilesResolver {
+
+        @Override
+        public String[] resolve(Class<?> testClass) {
+            return Stream.concat(Stream.of("memory"), Arrays.stream(System.getProperty("load-test.profiles", "").split(",")))
+                    .map(String::trim)
+                    .filter(profile -> !profile.isEmpty())
+                    .distinct()
+                    .toArray(String[]::new);
+        }
+    }
+}
@@ -1,48 +1,109 @@
 package com.hepsiemlak.todo.aspect;
 
 
+import com.hepsiemlak.todo.model.SliceResponse;
+import com.hepsiemlak.todo.model.todo.BatchTodoRequest;
+import com.hepsiemlak.todo.model.todo.BatchTodoResponse;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.reflect.CodeSignature;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Component;
 
-import java.util.HashMap;
+import java.lang.reflect.Array;
+import java.util.Collection;
 import java.util.Map;
 
 @Aspect
 @Component
 public class LogAspect {
 
+    private static final int MAX_VALUE_LENGTH = 256;
+
     @Around("@annotation(log)")
     public Object writeLog(ProceedingJoinPoint joinPoint, Log log) throws Throwable {
         Logger logger = LoggerFactory.getLogger(joinPoint.getSignature().getDeclaringType());
+        if (!logger.isInfoEnabled()) {
+            return joinPoint.proceed();
+        }
 
         String packageName = joinPoint.getSignature().getDeclaringTypeName();
         String methodName = joinPoint.getSignature().getName();
-        Map<String, Object> parameters = getParameters(joinPoint);
 
-        logger.info("{}.{} started with: {}", packageName, methodName, parameters);
+        logger.info("{}.{} started with: {}", packageName, methodName, getParameters(joinPoint));
         Object proceed;
         try {
             proceed = joinPoint.proceed();
         } catch (Throwable e) {
-            logger.info("{}.{} failed with: {}", packageName, methodName, e.getMessage());
+            logger.info("{}.{} failed with: {}", packageName, methodName, summarize(e.getMessage()));
             throw e;
         }
-        logger.info("{}.{} returned with: {}", packageName, methodName, proceed);
+        logger.info("{}.{} returned with: {}", packageName, methodName, summarize(proceed));
         return proceed;
     }
 
-    private Map<String, Object> getParameters(ProceedingJoinPoint joinPoint) {
-        Map<String, Object> parameters = new HashMap<>();
+    private String getParameters(ProceedingJoinPoint joinPoint) {
         String[] parameterNames = ((CodeSignature) joinPoint.getSignature()).getParameterNames();
         Object[] parameterValues = joinPoint.getArgs();
+        StringBuilder parameters = new StringBuilder("{");
         for (int i = 0; i < parameterNames.length && i < parameterValues.length; i++) {
-            parameters.put(parameterNames[i], parameterValues[i]);
+            if (i > 0) {
+                parameters.append(", ");
+            }
+            parameters.append(parameterNames[i]).append('=').append(summarize(parameterValues[i]));
+        }
+        return parameters.append('}').toString();
+    }
+
+    /**
+     * Values are summarized by type before anything is rendered: pages, containers and the batch
+     * and slice DTOs are reduced to their sizes, response entities to their status and a summary
+     * of the body. What is left, scalars and small request DTOs, is cut at
+     * {@value #MAX_VALUE_LENGTH} characters, so a log line costs the same whatever the payload.
+     */
+    static String summarize(Object value) {
+        if (value instanceof ResponseEntity) {
+            ResponseEntity<?> entity = (ResponseEntity<?>) value;
+            return "ResponseEntity[status=" + entity.getStatusCodeValue()
+                    + (entity.hasBody() ? ", body=" + summarize(entity.getBody()) : "") + "]";
+        }
+        if (value instanceof Slice) {
+            Slice<?> slice = (Slice<?>) value;
+            return slice.getClass().getSimpleName() + "[number=" + slice.getNumber()
+                    + ", size=" + slice.getNumberOfElements() + ", hasNext=" + slice.hasNext() + "]";
+        }
+        if (value instanceof SliceResponse) {
+            SliceResponse<?> slice = (SliceResponse<?>) value;
+            return "SliceResponse[size=" + size(slice.getContent()) + ", hasNext=" + slice.isHasNext() + "]";
         }
-        return parameters;
+        if (value instanceof BatchTodoRequest) {
+            BatchTodoRequest batch = (BatchTodoRequest) value;
+            return "BatchTodoRequest[create=" + size(batch.getCreate()) + ", update=" + size(batch.getUpdate())
+                    + ", delete=" + size(batch.getDelete()) + "]";
+        }
+        if (value instanceof BatchTodoResponse) {
+            BatchTodoResponse batch = (BatchTodoResponse) value;
+            return "BatchTodoResponse[create=" + size(batch.getCreate()) + ", update=" + size(batch.getUpdate())
+                    + ", delete=" + size(batch.getDelete()) + "]";
+        }
+        if (value instanceof Collection) {
+            return value.getClass().getSimpleName() + "[size=" + ((Collection<?>) value).size() + "]";
+        }
+        if (value instanceof Map) {
+            return value.getClass().getSimpleName() + "[size=" + ((Map<?, ?>) value).size() + "]";
+        }
+        if (value != null && value.getClass().isArray()) {
+            return value.getClass().getSimpleName() + "[size=" + Array.getLength(value) + "]";
+        }
+        String text = String.valueOf(value);
+        return text.length() > MAX_VALUE_LENGTH ? text.substring(0, MAX_VALUE_LENGTH) + "...(" + text.length() + " chars)" : text;
+    }
+
+    private static int size(Collection<?> collection) {
+        return collection != null ? collection.size() : 0;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,58 @@
+package com.hepsiemlak.todo.configuration;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.hepsiemlak.todo.entity.Todo;
+import com.hepsiemlak.todo.model.user.CustomUserDetails;
+import com.hepsiemlak.todo.service.LocalTodoInvalidationBus;
+import com.hepsiemlak.todo.service.TodoInvalidationBus;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+public class CacheConfiguration {
+
+    @Value("${cache.user-details.maximum-size:10000}")
+    private Long userDetailsMaximumSize;
+
+    @Value("${cache.user-details.expire-after-write:60s}")
+    private Duration userDetailsExpireAfterWrite;
+
+    @Value("${cache.todo.maximum-size:100000}")
+    private Long todoMaximumSize;
+
+    @Value("${cache.todo.expire-after-write:60s}")
+    private Duration todoExpireAfterWrite;
+
+    @Bean
+    public Cache<String, CustomUserDetails> userDetailsCache(MeterRegistry meterRegistry) {
+        Cache<String, CustomUserDetails> cache = Caffeine.newBuilder()
+                .maximumSize(userDetailsMaximumSize)
+                .expireAfterWrite(userDetailsExpireAfterWrite)
+                .recordStats()
+                .build();
+        return CaffeineCacheMetrics.monitor(meterRegistry, cache, "userDetails");
+    }
+
+    @Bean
+    public Cache<String, Todo> todoEntityCache(MeterRegistry meterRegistry) {
+        Cache<String, Todo> cache = Caffeine.newBuilder()
+                .maximumSize(todoMaximumSize)
+                .expireAfterWrite(todoExpireAfterWrite)
+                .recordStats()
+                .build();
+        return CaffeineCacheMetrics.monitor(meterRegistry, cache, "todo");
+    }
+
+    @Bean
+    @ConditionalOnMissingBean(TodoInvalidationBus.class)
+    public TodoInvalidationBus todoInvalidationBus() {
+        return new LocalTodoInvalidationBus();
+    }
+}
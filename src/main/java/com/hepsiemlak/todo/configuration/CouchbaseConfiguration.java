@@ -1,21 +1,34 @@
 package com.hepsiemlak.todo.configuration;
 
+import com.couchbase.client.core.endpoint.CircuitBreakerConfig;
+import com.couchbase.client.core.env.CompressionConfig;
+import com.couchbase.client.core.env.IoConfig;
+import com.couchbase.client.core.env.TimeoutConfig;
+import com.couchbase.client.java.env.ClusterEnvironment;
+import com.hepsiemlak.todo.entity.AccountDeletionJob;
 import com.hepsiemlak.todo.entity.Todo;
 import com.hepsiemlak.todo.entity.Token;
 import com.hepsiemlak.todo.entity.User;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
 import org.springframework.data.couchbase.CouchbaseClientFactory;
 import org.springframework.data.couchbase.SimpleCouchbaseClientFactory;
 import org.springframework.data.couchbase.config.AbstractCouchbaseConfiguration;
 import org.springframework.data.couchbase.core.CouchbaseTemplate;
 import org.springframework.data.couchbase.core.convert.MappingCouchbaseConverter;
 import org.springframework.data.couchbase.repository.config.EnableCouchbaseRepositories;
+import org.springframework.data.couchbase.repository.config.EnableReactiveCouchbaseRepositories;
+import org.springframework.data.couchbase.repository.config.ReactiveRepositoryOperationsMapping;
 import org.springframework.data.couchbase.repository.config.RepositoryOperationsMapping;
 
+import java.time.Duration;
+
 @Configuration
+@Profile("!memory")
 @EnableCouchbaseRepositories(basePackages = "com.hepsiemlak.todo.repository")
+@EnableReactiveCouchbaseRepositories(basePackages = "com.hepsiemlak.todo.repository.reactive")
 public class CouchbaseConfiguration extends AbstractCouchbaseConfiguration {
 
     @Value("${couchbase.connection-string}")
@@ -36,6 +49,51 @@ public class CouchbaseConfiguration extends AbstractCouchbaseConfiguration {
     @Value("${couchbase.bucket-token.name}")
     private String tokenBucketName;
 
+    @Value("${couchbase.io.num-kv-connections:1}")
+    private int numKvConnections;
+
+    @Value("${couchbase.io.max-http-connections:12}")
+    private int maxHttpConnections;
+
+    @Value("${couchbase.io.idle-http-connection-timeout:4500ms}")
+    private Duration idleHttpConnectionTimeout;
+
+    @Value("${couchbase.timeout.connect:10s}")
+    private Duration connectTimeout;
+
+    @Value("${couchbase.timeout.kv:2500ms}")
+    private Duration kvTimeout;
+
+    @Value("${couchbase.timeout.query:75s}")
+    private Duration queryTimeout;
+
+    @Value("${couchbase.compression.enabled:true}")
+    private boolean compressionEnabled;
+
+    @Value("${couchbase.compression.min-size:32}")
+    private int compressionMinSize;
+
+    @Value("${couchbase.compression.min-ratio:0.83}")
+    private double compressionMinRatio;
+
+    @Value("${couchbase.circuit-breaker.kv-enabled:false}")
+    private boolean kvCircuitBreakerEnabled;
+
+    @Value("${couchbase.circuit-breaker.query-enabled:false}")
+    private boolean queryCircuitBreakerEnabled;
+
+    @Value("${couchbase.circuit-breaker.volume-threshold:20}")
+    private int circuitBreakerVolumeThreshold;
+
+    @Value("${couchbase.circuit-breaker.error-threshold-percentage:50}")
+    private int circuitBreakerErrorThresholdPercentage;
+
+    @Value("${couchbase.circuit-breaker.sleep-window:5s}")
+    private Duration circuitBreakerSleepWindow;
+
+    @Value("${couchbase.circuit-breaker.rolling-window:1m}")
+    private Duration circuitBreakerRollingWindow;
+
     @Override
     public String getConnectionString() {
         return this.connectionString;
@@ -56,11 +114,41 @@ public class CouchbaseConfiguration extends AbstractCouchbaseConfiguration {
         return this.userBucketName;
     }
 
+    /**
+     * Applies to the one environment shared by all buckets. The defaults are the SDK's own; in
+     * the SDK, query requests share the HTTP connection pool sized by max-http-connections.
+     */
+    @Override
+    protected void configureEnvironment(ClusterEnvironment.Builder builder) {
+        builder.ioConfig(IoConfig.builder()
+                        .numKvConnections(numKvConnections)
+                        .maxHttpConnections(maxHttpConnections)
+                        .idleHttpConnectionTimeout(idleHttpConnectionTimeout)
+                        .kvCircuitBreakerConfig(circuitBreaker(kvCircuitBreakerEnabled))
+                        .queryCircuitBreakerConfig(circuitBreaker(queryCircuitBreakerEnabled)))
+                .timeoutConfig(TimeoutConfig.builder()
+                        .connectTimeout(connectTimeout)
+                        .kvTimeout(kvTimeout)
+                        .queryTimeout(queryTimeout))
+                .compressionConfig(CompressionConfig.builder()
+                        .enable(compressionEnabled)
+                        .minSize(compressionMinSize)
+                        .minRatio(compressionMinRatio));
+    }
+
     @Override
     protected void configureRepositoryOperationsMapping(RepositoryOperationsMapping mapping) {
         mapping.mapEntity(User.class, userTemplate());
         mapping.mapEntity(Todo.class, todoTemplate());
         mapping.mapEntity(Token.class, tokenTemplate());
+        mapping.mapEntity(AccountDeletionJob.class, userTemplate());
+    }
+
+    @Override
+    protected void configureReactiveRepositoryOperationsMapping(ReactiveRepositoryOperationsMapping mapping) {
+        mapping.mapEntity(User.class, userTemplate().reactive());
+        mapping.mapEntity(Todo.class, todoTemplate().reactive());
+        mapping.mapEntity(Token.class, tokenTemplate().reactive());
     }
 
     @Bean
@@ -70,7 +158,7 @@ public class CouchbaseConfiguration extends AbstractCouchbaseConfiguration {
 
     @Bean
     public CouchbaseClientFactory userClientFactory() {
-        return new SimpleCouchbaseClientFactory(getConnectionString(), authenticator(), userBucketName);
+        return new SimpleCouchbaseClientFactory(couchbaseCluster(couchbaseClusterEnvironment()), userBucketName, null);
     }
 
     @Bean
@@ -80,7 +168,7 @@ public class CouchbaseConfiguration extends AbstractCouchbaseConfiguration {
 
     @Bean
     public CouchbaseClientFactory todoClientFactory() {
-        return new SimpleCouchbaseClientFactory(getConnectionString(), authenticator(), todoBucketName);
+        return new SimpleCouchbaseClientFactory(couchbaseCluster(couchbaseClusterEnvironment()), todoBucketName, null);
     }
 
     @Bean
@@ -90,6 +178,15 @@ public class CouchbaseConfiguration extends AbstractCouchbaseConfiguration {
 
     @Bean
     public CouchbaseClientFactory tokenClientFactory() {
-        return new SimpleCouchbaseClientFactory(getConnectionString(), authenticator(), tokenBucketName);
+        return new SimpleCouchbaseClientFactory(couchbaseCluster(couchbaseClusterEnvironment()), tokenBucketName, null);
+    }
+
+    private CircuitBreakerConfig.Builder circuitBreaker(boolean enabled) {
+        return CircuitBreakerConfig.builder()
+                .enabled(enabled)
+                .volumeThreshold(circuitBreakerVolumeThreshold)
+                .errorThresholdPercentage(circuitBreakerErrorThresholdPercentage)
+                .sleepWindow(circuitBreakerSleepWindow)
+                .rollingWindow(circuitBreakerRollingWindow);
     }
-}
\ No newline at end of file
+}
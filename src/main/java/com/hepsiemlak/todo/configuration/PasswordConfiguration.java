@@ -0,0 +1,50 @@
+package com.hepsiemlak.todo.configuration;
+
+import com.hepsiemlak.todo.util.BoundedPasswordEncoder;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Configuration
+public class PasswordConfiguration {
+
+    @Value("${password.bcrypt-strength:10}")
+    private int bcryptStrength;
+
+    @Value("${password.hashing.threads:2}")
+    private int hashingThreads;
+
+    @Value("${password.hashing.queue-capacity:64}")
+    private int hashingQueueCapacity;
+
+    @Value("${password.hashing.timeout:2s}")
+    private Duration hashingTimeout;
+
+    /**
+     * BCrypt runs on its own small pool so a burst of logins cannot occupy the servlet threads
+     * with hashing. The executor is kept out of the context so it does not replace Boot's
+     * default task executor.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public BoundedPasswordEncoder passwordEncoder(MeterRegistry meterRegistry) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(hashingThreads, hashingThreads,
+                0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(hashingQueueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "password-hashing-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        ExecutorService monitored = ExecutorServiceMetrics.monitor(meterRegistry, executor, "passwordHashing");
+        return new BoundedPasswordEncoder(new BCryptPasswordEncoder(bcryptStrength), monitored, hashingTimeout);
+    }
+}
@@ -0,0 +1,66 @@
+package com.hepsiemlak.todo.configuration;
+
+import com.hepsiemlak.todo.filter.JwtWebFilter;
+import com.hepsiemlak.todo.util.JwtUtil;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpMethod;
+import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
+import org.springframework.security.config.web.server.SecurityWebFiltersOrder;
+import org.springframework.security.config.web.server.ServerHttpSecurity;
+import org.springframework.security.core.userdetails.ReactiveUserDetailsService;
+import org.springframework.security.web.server.SecurityWebFilterChain;
+import org.springframework.security.web.server.context.NoOpServerSecurityContextRepository;
+import org.springframework.security.web.server.util.matcher.AndServerWebExchangeMatcher;
+import org.springframework.security.web.server.util.matcher.ServerWebExchangeMatcher;
+import org.springframework.security.web.server.util.matcher.ServerWebExchangeMatchers;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+
+/**
+ * Security of the reactive profile, equivalent to {@link SecurityConfiguration}. Path patterns
+ * use a single-segment wildcard because WebFlux patterns do not allow {@code **} mid-path.
+ * Prometheus is only open on the management port here as well.
+ */
+@Configuration
+@EnableWebFluxSecurity
+@Profile("reactive")
+public class ReactiveSecurityConfiguration {
+
+    @Value("${management.server.port:-1}")
+    private int managementPort;
+
+    @Bean
+    public SecurityWebFilterChain securityWebFilterChain(ServerHttpSecurity http, JwtUtil jwtUtil,
+                                                         ReactiveUserDetailsService userDetailsService) {
+        return http.csrf().disable()
+                .httpBasic().disable()
+                .formLogin().disable()
+                .securityContextRepository(NoOpServerSecurityContextRepository.getInstance())
+                .authorizeExchange()
+                .pathMatchers(HttpMethod.POST, "/api/*/users/register", "/api/*/users/login", "/api/*/users/refresh-token")
+                .permitAll()
+                .pathMatchers(HttpMethod.GET, "/api/*/users/deletion-jobs/*")
+                .permitAll()
+                .pathMatchers("/swagger-ui/**", "/v3/api-docs/**", "/actuator/health")
+                .permitAll()
+                .matchers(new AndServerWebExchangeMatcher(
+                        ServerWebExchangeMatchers.pathMatchers("/actuator/prometheus"), this::onManagementPort))
+                .permitAll()
+                .anyExchange().authenticated()
+                .and()
+                .addFilterAt(new JwtWebFilter(jwtUtil, userDetailsService), SecurityWebFiltersOrder.AUTHENTICATION)
+                .build();
+    }
+
+    private Mono<ServerWebExchangeMatcher.MatchResult> onManagementPort(ServerWebExchange exchange) {
+        InetSocketAddress localAddress = exchange.getRequest().getLocalAddress();
+        return localAddress != null && localAddress.getPort() == managementPort
+                ? ServerWebExchangeMatcher.MatchResult.match()
+                : ServerWebExchangeMatcher.MatchResult.notMatch();
+    }
+}
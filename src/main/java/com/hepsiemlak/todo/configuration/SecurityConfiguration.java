@@ -2,25 +2,34 @@ package com.hepsiemlak.todo.configuration;
 
 import com.hepsiemlak.todo.filter.JwtAuthenticationFilter;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
 import org.springframework.http.HttpMethod;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.security.web.util.matcher.AndRequestMatcher;
 import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
 
 @Configuration
 @EnableWebSecurity
+@Profile("!reactive")
 public class SecurityConfiguration {
 
     @Autowired
     private JwtAuthenticationFilter jwtAuthenticationFilter;
 
+    /**
+     * Prometheus is scraped without a token, but only on the management port; without one it
+     * needs authentication like the API.
+     */
+    @Value("${management.server.port:-1}")
+    private int managementPort;
+
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
         http.csrf().disable()
@@ -29,8 +38,13 @@ public class SecurityConfiguration {
                         new AntPathRequestMatcher("/api/**/users/register", HttpMethod.POST.name()),
                         new AntPathRequestMatcher("/api/**/users/login", HttpMethod.POST.name()),
                         new AntPathRequestMatcher("/api/**/users/refresh-token", HttpMethod.POST.name()),
+                        new AntPathRequestMatcher("/api/**/users/deletion-jobs/*", HttpMethod.GET.name()),
                         new AntPathRequestMatcher("/swagger-ui/**"),
-                        new AntPathRequestMatcher("/v3/api-docs/**"))
+                        new AntPathRequestMatcher("/v3/api-docs/**"),
+                        new AntPathRequestMatcher("/actuator/health"),
+                        new AndRequestMatcher(
+                                new AntPathRequestMatcher("/actuator/prometheus"),
+                                request -> request.getLocalPort() == managementPort))
                 .permitAll()
                 .anyRequest().authenticated()
                 .and()
@@ -40,9 +54,4 @@ public class SecurityConfiguration {
 
         return http.build();
     }
-
-    @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
-    }
-}
\ No newline at end of file
+}
@@ -1,14 +1,19 @@
 package com.hepsiemlak.todo.controller;
 
+import com.hepsiemlak.todo.exception.BadRequestException;
 import com.hepsiemlak.todo.exception.ConflictException;
 import com.hepsiemlak.todo.exception.NotFoundException;
+import com.hepsiemlak.todo.exception.PreconditionFailedException;
+import com.hepsiemlak.todo.exception.ServiceUnavailableException;
 import com.hepsiemlak.todo.exception.UnauthorizedException;
 import com.hepsiemlak.todo.model.ErrorResponse;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.support.WebExchangeBindException;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -27,6 +32,24 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(ErrorResponse.builder().errors(errors).build(), HttpStatus.BAD_REQUEST);
     }
 
+    @ExceptionHandler(WebExchangeBindException.class)
+    public ResponseEntity<ErrorResponse> handleWebExchangeBindException(WebExchangeBindException ex) {
+
+        List<ErrorResponse.Error> errors = new ArrayList<>();
+
+        ex.getFieldErrors().forEach(objectError -> errors.add(ErrorResponse.Error.builder()
+                .message(objectError.getField() + " " + objectError.getDefaultMessage()).build()));
+
+        return new ResponseEntity<>(ErrorResponse.builder().errors(errors).build(), HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(BadRequestException.class)
+    public ResponseEntity<ErrorResponse> handleBadRequestException(BadRequestException ex) {
+        List<ErrorResponse.Error> errors = new ArrayList<>();
+        errors.add(ErrorResponse.Error.builder().message(ex.getMessage()).build());
+        return new ResponseEntity<>(ErrorResponse.builder().errors(errors).build(), HttpStatus.BAD_REQUEST);
+    }
+
     @ExceptionHandler(NotFoundException.class)
     public ResponseEntity<ErrorResponse> handleEntityNotFoundException(NotFoundException ex) {
         List<ErrorResponse.Error> errors = new ArrayList<>();
@@ -41,6 +64,13 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(ErrorResponse.builder().errors(errors).build(), HttpStatus.CONFLICT);
     }
 
+    @ExceptionHandler(PreconditionFailedException.class)
+    public ResponseEntity<ErrorResponse> handlePreconditionFailedException(PreconditionFailedException ex) {
+        List<ErrorResponse.Error> errors = new ArrayList<>();
+        errors.add(ErrorResponse.Error.builder().message(ex.getMessage()).build());
+        return new ResponseEntity<>(ErrorResponse.builder().errors(errors).build(), HttpStatus.PRECONDITION_FAILED);
+    }
+
     @ExceptionHandler(UnauthorizedException.class)
     public ResponseEntity<ErrorResponse> handleUnauthorizedException(UnauthorizedException ex) {
         List<ErrorResponse.Error> errors = new ArrayList<>();
@@ -48,6 +78,15 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(ErrorResponse.builder().errors(errors).build(), HttpStatus.UNAUTHORIZED);
     }
 
+    @ExceptionHandler(ServiceUnavailableException.class)
+    public ResponseEntity<ErrorResponse> handleServiceUnavailableException(ServiceUnavailableException ex) {
+        List<ErrorResponse.Error> errors = new ArrayList<>();
+        errors.add(ErrorResponse.Error.builder().message(ex.getMessage()).build());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(ErrorResponse.builder().errors(errors).build());
+    }
+
     @ExceptionHandler(RuntimeException.class)
     public ResponseEntity<ErrorResponse> handleRuntimeException(RuntimeException ex) {
         List<ErrorResponse.Error> errors = new ArrayList<>();
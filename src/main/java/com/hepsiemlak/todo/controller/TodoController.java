@@ -1,19 +1,32 @@
 package com.hepsiemlak.todo.controller;
 
 import com.hepsiemlak.todo.aspect.Log;
+import com.hepsiemlak.todo.model.SliceResponse;
 import com.hepsiemlak.todo.model.todo.AddTodoRequest;
+import com.hepsiemlak.todo.model.todo.BatchTodoRequest;
+import com.hepsiemlak.todo.model.todo.BatchTodoResponse;
+import com.hepsiemlak.todo.model.todo.TodoFilter;
 import com.hepsiemlak.todo.model.todo.TodoResponse;
+import com.hepsiemlak.todo.model.todo.TodoStatsResponse;
 import com.hepsiemlak.todo.model.todo.UpdateTodoRequest;
 import com.hepsiemlak.todo.service.TodoService;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import javax.validation.Valid;
+import java.util.List;
+import java.util.Optional;
 
 @RestController
+@Profile("!reactive")
 @RequestMapping("/api/v1/todos")
 @RequiredArgsConstructor
 public class TodoController {
@@ -28,14 +41,22 @@ public class TodoController {
         todoService.createTodo(authorization, request);
     }
 
+    /**
+     * Applied only while the todo still matches If-Match, when given, and answered with a 412
+     * otherwise. The new version comes back as the ETag for the next conditional update.
+     */
     @Log
     @PutMapping("/{id}")
-    @ResponseStatus(HttpStatus.OK)
     @SecurityRequirement(name = "Authorization")
-    public void updateTodo(@RequestHeader("Authorization") String authorization,
-                           @PathVariable String id,
-                           @RequestBody @Valid UpdateTodoRequest request) {
-        todoService.updateTodo(authorization, id, request);
+    public ResponseEntity<Void> updateTodo(@RequestHeader("Authorization") String authorization,
+                                           @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                           @PathVariable String id,
+                                           @RequestBody @Valid UpdateTodoRequest request) {
+        TodoResponse todo = todoService.updateTodo(authorization, id, request, ifMatch);
+        if (todo.getVersion() == null) {
+            return ResponseEntity.ok().build();
+        }
+        return ResponseEntity.ok().eTag(todo.getVersion().toString()).build();
     }
 
     @Log
@@ -46,22 +67,83 @@ public class TodoController {
         todoService.deleteTodo(authorization, id);
     }
 
+    /**
+     * Tagged with the todo's version; a matching If-None-Match gets a 304 without a body.
+     */
     @Log
     @GetMapping("/{id}")
-    @ResponseStatus(HttpStatus.OK)
     @SecurityRequirement(name = "Authorization")
-    public TodoResponse getTodoById(@RequestHeader("Authorization") String authorization, @PathVariable String id) {
-        return todoService.getTodoById(authorization, id);
+    public ResponseEntity<TodoResponse> getTodoById(@RequestHeader("Authorization") String authorization, @PathVariable String id) {
+        TodoResponse todo = todoService.getTodoById(authorization, id);
+        if (todo.getVersion() == null) {
+            return ResponseEntity.ok(todo);
+        }
+        return ResponseEntity.ok().eTag(todo.getVersion().toString()).body(todo);
     }
 
+    /**
+     * Tagged with the version of the user's todos, which is checked against If-None-Match before
+     * the page is queried. The page query waits for the index to cover that version, so a page
+     * is never older than its tag. A page read while a write is in flight is not tagged, as the
+     * write may show in it before the version covers it.
+     */
     @Log
     @GetMapping
-    @ResponseStatus(HttpStatus.OK)
     @SecurityRequirement(name = "Authorization")
-    public Page<TodoResponse> getTodos(
+    public ResponseEntity<Page<TodoResponse>> getTodos(
             @RequestHeader("Authorization") String authorization,
             @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) Boolean completed,
+            @RequestParam(required = false) String titlePrefix,
+            @RequestParam(required = false) String titleContains,
+            @RequestParam(required = false) String sort,
+            @RequestParam(defaultValue = "ASC") Sort.Direction direction,
+            @RequestParam(required = false) List<String> fields,
+            WebRequest webRequest) {
+        Optional<String> etag = todoService.getTodosVersion(authorization).map(String::valueOf);
+        if (etag.isPresent() && webRequest.checkNotModified(etag.get())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build();
+        }
+
+        TodoFilter filter = TodoFilter.builder()
+                .completed(completed)
+                .titlePrefix(titlePrefix)
+                .titleContains(titleContains)
+                .sort(sort)
+                .direction(direction)
+                .fields(fields)
+                .build();
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        etag.ifPresent(response::eTag);
+        return response.body(todoService.getTodos(authorization, page, size, filter));
+    }
+
+    @Log
+    @GetMapping("/cursor")
+    @ResponseStatus(HttpStatus.OK)
+    @SecurityRequirement(name = "Authorization")
+    public SliceResponse<TodoResponse> getTodosByCursor(
+            @RequestHeader("Authorization") String authorization,
+            @RequestParam(required = false) String cursor,
             @RequestParam(defaultValue = "10") int size) {
-        return todoService.getTodos(authorization, page, size);
+        return todoService.getTodosByCursor(authorization, cursor, size);
+    }
+
+    @Log
+    @GetMapping("/stats")
+    @ResponseStatus(HttpStatus.OK)
+    @SecurityRequirement(name = "Authorization")
+    public TodoStatsResponse getStats(@RequestHeader("Authorization") String authorization) {
+        return todoService.getStats(authorization);
+    }
+
+    @Log
+    @PostMapping("/batch")
+    @ResponseStatus(HttpStatus.OK)
+    @SecurityRequirement(name = "Authorization")
+    public BatchTodoResponse batchTodos(@RequestHeader("Authorization") String authorization,
+                                        @RequestBody @Valid BatchTodoRequest request) {
+        return todoService.batchTodos(authorization, request);
     }
 }
\ No newline at end of file
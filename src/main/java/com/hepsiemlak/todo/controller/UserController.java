@@ -1,12 +1,14 @@
 package com.hepsiemlak.todo.controller;
 
 import com.hepsiemlak.todo.aspect.Log;
+import com.hepsiemlak.todo.model.user.AccountDeletionJobResponse;
 import com.hepsiemlak.todo.model.user.PasswordRequest;
 import com.hepsiemlak.todo.model.user.RefreshTokenRequest;
 import com.hepsiemlak.todo.model.user.UserRequest;
 import com.hepsiemlak.todo.service.UserService;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -16,6 +18,7 @@ import javax.validation.Valid;
 import java.util.Map;
 
 @RestController
+@Profile("!reactive")
 @RequestMapping("/api/v1/users")
 @RequiredArgsConstructor
 public class UserController {
@@ -61,9 +64,18 @@ public class UserController {
 
     @Log
     @DeleteMapping
-    @ResponseStatus(HttpStatus.OK)
     @SecurityRequirement(name = "Authorization")
-    public void deleteUser(@RequestHeader("Authorization") String authorization) {
-        userService.deleteUser(authorization);
+    public ResponseEntity<Void> deleteUser(@RequestHeader("Authorization") String authorization) {
+        String jobId = userService.deleteUser(authorization);
+        HttpHeaders headers = new HttpHeaders();
+        headers.add("Job-Id", jobId);
+        return new ResponseEntity<>(headers, HttpStatus.ACCEPTED);
+    }
+
+    @Log
+    @GetMapping("/deletion-jobs/{jobId}")
+    @ResponseStatus(HttpStatus.OK)
+    public AccountDeletionJobResponse getDeletionJob(@PathVariable String jobId) {
+        return userService.getDeletionJob(jobId);
     }
 }
@@ -0,0 +1,127 @@
+package com.hepsiemlak.todo.controller.reactive;
+
+import com.hepsiemlak.todo.model.SliceResponse;
+import com.hepsiemlak.todo.model.todo.AddTodoRequest;
+import com.hepsiemlak.todo.model.todo.BatchTodoRequest;
+import com.hepsiemlak.todo.model.todo.BatchTodoResponse;
+import com.hepsiemlak.todo.model.todo.TodoFilter;
+import com.hepsiemlak.todo.model.todo.TodoResponse;
+import com.hepsiemlak.todo.model.todo.TodoStatsResponse;
+import com.hepsiemlak.todo.model.todo.UpdateTodoRequest;
+import com.hepsiemlak.todo.service.reactive.ReactiveTodoService;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import javax.validation.Valid;
+import java.util.List;
+
+@RestController
+@Profile("reactive")
+@RequestMapping("/api/v1/todos")
+@RequiredArgsConstructor
+public class ReactiveTodoController {
+
+    private final ReactiveTodoService todoService;
+
+    @PostMapping
+    @ResponseStatus(HttpStatus.CREATED)
+    @SecurityRequirement(name = "Authorization")
+    public Mono<Void> createTodo(@RequestHeader("Authorization") String authorization, @RequestBody @Valid AddTodoRequest request) {
+        return todoService.createTodo(authorization, request);
+    }
+
+    @PutMapping("/{id}")
+    @SecurityRequirement(name = "Authorization")
+    public Mono<ResponseEntity<Void>> updateTodo(@RequestHeader("Authorization") String authorization,
+                                                 @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                                 @PathVariable String id,
+                                                 @RequestBody @Valid UpdateTodoRequest request) {
+        return todoService.updateTodo(authorization, id, request, ifMatch)
+                .map(todo -> todo.getVersion() == null
+                        ? ResponseEntity.ok().<Void>build()
+                        : ResponseEntity.ok().eTag(todo.getVersion().toString()).<Void>build());
+    }
+
+    @DeleteMapping("/{id}")
+    @ResponseStatus(HttpStatus.OK)
+    @SecurityRequirement(name = "Authorization")
+    public Mono<Void> deleteTodo(@RequestHeader("Authorization") String authorization, @PathVariable String id) {
+        return todoService.deleteTodo(authorization, id);
+    }
+
+    @GetMapping("/{id}")
+    @SecurityRequirement(name = "Authorization")
+    public Mono<ResponseEntity<TodoResponse>> getTodoById(@RequestHeader("Authorization") String authorization, @PathVariable String id) {
+        return todoService.getTodoById(authorization, id)
+                .map(todo -> todo.getVersion() == null
+                        ? ResponseEntity.ok(todo)
+                        : ResponseEntity.ok().eTag(todo.getVersion().toString()).body(todo));
+    }
+
+    @GetMapping
+    @SecurityRequirement(name = "Authorization")
+    public Mono<ResponseEntity<Page<TodoResponse>>> getTodos(
+            @RequestHeader("Authorization") String authorization,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) Boolean completed,
+            @RequestParam(required = false) String titlePrefix,
+            @RequestParam(required = false) String titleContains,
+            @RequestParam(required = false) String sort,
+            @RequestParam(defaultValue = "ASC") Sort.Direction direction,
+            @RequestParam(required = false) List<String> fields,
+            ServerWebExchange exchange) {
+        TodoFilter filter = TodoFilter.builder()
+                .completed(completed)
+                .titlePrefix(titlePrefix)
+                .titleContains(titleContains)
+                .sort(sort)
+                .direction(direction)
+                .fields(fields)
+                .build();
+        return todoService.getTodosVersion(authorization)
+                .map(version -> version.map(String::valueOf))
+                .flatMap(etag -> etag.isPresent() && exchange.checkNotModified(etag.get())
+                        ? Mono.just(ResponseEntity.status(HttpStatus.NOT_MODIFIED).<Page<TodoResponse>>build())
+                        : todoService.getTodos(authorization, page, size, filter)
+                                .map(todos -> {
+                                    ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+                                    etag.ifPresent(response::eTag);
+                                    return response.body(todos);
+                                }));
+    }
+
+    @GetMapping("/stats")
+    @ResponseStatus(HttpStatus.OK)
+    @SecurityRequirement(name = "Authorization")
+    public Mono<TodoStatsResponse> getStats(@RequestHeader("Authorization") String authorization) {
+        return todoService.getStats(authorization);
+    }
+
+    @GetMapping("/cursor")
+    @ResponseStatus(HttpStatus.OK)
+    @SecurityRequirement(name = "Authorization")
+    public Mono<SliceResponse<TodoResponse>> getTodosByCursor(
+            @RequestHeader("Authorization") String authorization,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size) {
+        return todoService.getTodosByCursor(authorization, cursor, size);
+    }
+
+    @PostMapping("/batch")
+    @ResponseStatus(HttpStatus.OK)
+    @SecurityRequirement(name = "Authorization")
+    public Mono<BatchTodoResponse> batchTodos(@RequestHeader("Authorization") String authorization,
+                                              @RequestBody @Valid BatchTodoRequest request) {
+        return todoService.batchTodos(authorization, request);
+    }
+}
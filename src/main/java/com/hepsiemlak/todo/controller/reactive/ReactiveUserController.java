@@ -0,0 +1,76 @@
+package com.hepsiemlak.todo.controller.reactive;
+
+import com.hepsiemlak.todo.model.user.AccountDeletionJobResponse;
+import com.hepsiemlak.todo.model.user.PasswordRequest;
+import com.hepsiemlak.todo.model.user.RefreshTokenRequest;
+import com.hepsiemlak.todo.model.user.UserRequest;
+import com.hepsiemlak.todo.service.reactive.ReactiveUserService;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+import javax.validation.Valid;
+import java.util.Map;
+
+@RestController
+@Profile("reactive")
+@RequestMapping("/api/v1/users")
+@RequiredArgsConstructor
+public class ReactiveUserController {
+
+    private final ReactiveUserService userService;
+
+    @PostMapping("/register")
+    public Mono<ResponseEntity<Void>> registerUser(@RequestBody @Valid UserRequest request) {
+        return userService.registerUser(request).map(userId -> {
+            HttpHeaders headers = new HttpHeaders();
+            headers.add("User-Id", userId);
+            return new ResponseEntity<>(headers, HttpStatus.CREATED);
+        });
+    }
+
+    @PostMapping("/login")
+    public Mono<ResponseEntity<Void>> loginUser(@RequestBody @Valid UserRequest request) {
+        return userService.loginUser(request).map(ReactiveUserController::toTokenResponse);
+    }
+
+    @PostMapping("/refresh-token")
+    public Mono<ResponseEntity<Void>> refreshToken(@RequestBody @Valid RefreshTokenRequest request) {
+        return userService.refreshToken(request).map(ReactiveUserController::toTokenResponse);
+    }
+
+    @PostMapping("/change-password")
+    @ResponseStatus(HttpStatus.OK)
+    @SecurityRequirement(name = "Authorization")
+    public Mono<Void> changePassword(@RequestBody @Valid PasswordRequest request) {
+        return userService.changePassword(request);
+    }
+
+    @DeleteMapping
+    @SecurityRequirement(name = "Authorization")
+    public Mono<ResponseEntity<Void>> deleteUser(@RequestHeader("Authorization") String authorization) {
+        return userService.deleteUser(authorization).map(jobId -> {
+            HttpHeaders headers = new HttpHeaders();
+            headers.add("Job-Id", jobId);
+            return new ResponseEntity<>(headers, HttpStatus.ACCEPTED);
+        });
+    }
+
+    @GetMapping("/deletion-jobs/{jobId}")
+    @ResponseStatus(HttpStatus.OK)
+    public Mono<AccountDeletionJobResponse> getDeletionJob(@PathVariable String jobId) {
+        return userService.getDeletionJob(jobId);
+    }
+
+    private static ResponseEntity<Void> toTokenResponse(Map<String, String> tokens) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.add("Access-Token", tokens.get("accessToken"));
+        headers.add("Refresh-Token", tokens.get("refreshToken"));
+        return new ResponseEntity<>(headers, HttpStatus.OK);
+    }
+}
@@ -0,0 +1,72 @@
+package com.hepsiemlak.todo.entity;
+
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.couchbase.core.mapping.Document;
+import org.springframework.data.couchbase.core.mapping.Field;
+
+@Document
+@Builder(toBuilder = true)
+@Setter
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+public class AccountDeletionJob {
+
+    private static final String ID_PREFIX = "account-deletion::";
+
+    @Id
+    private String id;
+
+    @Version
+    private Long version;
+
+    @Field
+    private String username;
+
+    @Field
+    private Status status;
+
+    @Field
+    private Long deletedTodos;
+
+    @Field
+    private Long createdDate;
+
+    @Field
+    private Long lastModifiedDate;
+
+    @Field
+    private String message;
+
+    @Field
+    private Integer attempts;
+
+    /**
+     * How long the node running the job holds it; a running job past its lease is taken over.
+     */
+    @Field
+    private Long leaseExpirationDate;
+
+    /**
+     * When a failed job is tried again.
+     */
+    @Field
+    private Long nextAttemptDate;
+
+    /**
+     * Jobs live in the user bucket next to the users, so their keys carry a prefix of their own.
+     */
+    public static String idOf(String jobId) {
+        return ID_PREFIX + jobId;
+    }
+
+    public String getJobId() {
+        return id.substring(ID_PREFIX.length());
+    }
+
+    public enum Status {
+        PENDING, RUNNING, COMPLETED, FAILED
+    }
+}
@@ -2,6 +2,7 @@ package com.hepsiemlak.todo.entity;
 
 import lombok.*;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
 import org.springframework.data.couchbase.core.mapping.Document;
 import org.springframework.data.couchbase.core.mapping.Field;
 import org.springframework.data.couchbase.core.mapping.id.GeneratedValue;
@@ -20,6 +21,9 @@ public class Todo {
     @GeneratedValue(strategy = UNIQUE)
     private String id;
 
+    @Version
+    private Long version;
+
     @Field
     private String title;
 
@@ -31,4 +35,7 @@ public class Todo {
 
     @Field
     private String username;
+
+    @Field
+    private Long createdDate;
 }
@@ -1,12 +1,13 @@
 package com.hepsiemlak.todo.entity;
 
+import com.hepsiemlak.todo.util.HashUtil;
 import lombok.*;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
 import org.springframework.data.couchbase.core.mapping.Document;
 import org.springframework.data.couchbase.core.mapping.Field;
-import org.springframework.data.couchbase.core.mapping.id.GeneratedValue;
 
-import static org.springframework.data.couchbase.core.mapping.id.GenerationStrategy.UNIQUE;
+import java.time.Duration;
 
 @Document
 @Builder(toBuilder = true)
@@ -16,19 +17,39 @@ import static org.springframework.data.couchbase.core.mapping.id.GenerationStrat
 @AllArgsConstructor
 public class Token {
 
+    private static final String ID_PREFIX = "token::";
+
     @Id
-    @GeneratedValue(strategy = UNIQUE)
     private String id;
 
-    @Field
-    private String accessToken;
+    @Version
+    private Long version;
 
     @Field
-    private String refreshToken;
+    private String accessToken;
 
     @Field
     private String username;
 
     @Field
     private Long expirationDate;
+
+    @Field
+    private Boolean consumed;
+
+    /**
+     * Tokens are keyed by a hash of the refresh token, so a refresh is a KV get and the
+     * refresh token itself is never stored.
+     */
+    public static String idOf(String refreshToken) {
+        return ID_PREFIX + HashUtil.sha256(refreshToken);
+    }
+
+    /**
+     * Time left until {@code expirationDate}, used as the document expiry so expired tokens are
+     * removed by the server.
+     */
+    public Duration remainingLifetime() {
+        return Duration.ofMillis(Math.max(expirationDate - System.currentTimeMillis(), 1000L));
+    }
 }
@@ -2,14 +2,9 @@ package com.hepsiemlak.todo.entity;
 
 import lombok.*;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
 import org.springframework.data.couchbase.core.mapping.Document;
 import org.springframework.data.couchbase.core.mapping.Field;
-import org.springframework.data.couchbase.core.mapping.id.GeneratedValue;
-
-import java.util.ArrayList;
-import java.util.List;
-
-import static org.springframework.data.couchbase.core.mapping.id.GenerationStrategy.UNIQUE;
 
 @Document
 @Builder(toBuilder = true)
@@ -19,10 +14,14 @@ import static org.springframework.data.couchbase.core.mapping.id.GenerationStrat
 @AllArgsConstructor
 public class User {
 
+    private static final String ID_PREFIX = "user::";
+
     @Id
-    @GeneratedValue(strategy = UNIQUE)
     private String id;
 
+    @Version
+    private Long version;
+
     @Field
     private String username;
 
@@ -32,6 +31,11 @@ public class User {
     @Field
     private Long lastModifiedDate;
 
-    @Field
-    private List<String> tasks = new ArrayList<>();
+    /**
+     * Users are keyed by their username so they can be fetched with a KV get
+     * instead of a N1QL query.
+     */
+    public static String idOf(String username) {
+        return ID_PREFIX + username;
+    }
 }
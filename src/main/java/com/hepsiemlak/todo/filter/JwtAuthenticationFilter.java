@@ -1,8 +1,10 @@
 package com.hepsiemlak.todo.filter;
 
 import com.hepsiemlak.todo.model.user.CustomUserDetails;
+import com.hepsiemlak.todo.model.user.TokenClaims;
 import com.hepsiemlak.todo.util.JwtUtil;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
 import org.springframework.http.HttpHeaders;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -19,6 +21,7 @@ import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 
 @Component
+@Profile("!reactive")
 @RequiredArgsConstructor
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
@@ -31,11 +34,11 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         String authorization = request.getHeader(HttpHeaders.AUTHORIZATION);
 
         if (authorization != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            String username = jwtUtil.extractUsernameByAuthorization(authorization);
-            UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+            TokenClaims claims = jwtUtil.extractClaimsByAuthorization(authorization);
+            UserDetails userDetails = userDetailsService.loadUserByUsername(claims.getSubject());
             CustomUserDetails customUserDetails = (CustomUserDetails) userDetails;
-            if (jwtUtil.validateToken(authorization, customUserDetails.getUsername(), customUserDetails.getLastModifiedDate())) {
-                UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+            if (jwtUtil.validateClaims(claims, customUserDetails.getUsername(), customUserDetails.getLastModifiedDate())) {
+                UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(userDetails, claims, userDetails.getAuthorities());
                 authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                 SecurityContextHolder.getContext().setAuthentication(authentication);
             }
@@ -0,0 +1,59 @@
+package com.hepsiemlak.todo.filter;
+
+import com.hepsiemlak.todo.exception.NotFoundException;
+import com.hepsiemlak.todo.exception.UnauthorizedException;
+import com.hepsiemlak.todo.model.user.CustomUserDetails;
+import com.hepsiemlak.todo.model.user.TokenClaims;
+import com.hepsiemlak.todo.util.JwtUtil;
+import io.jsonwebtoken.JwtException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.security.core.userdetails.ReactiveUserDetailsService;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+
+/**
+ * Reactive counterpart of {@link JwtAuthenticationFilter}. It is added to the security chain
+ * explicitly rather than declared as a bean, which would make WebFlux run it a second time.
+ * A token that does not verify leaves the exchange unauthenticated.
+ */
+@RequiredArgsConstructor
+public class JwtWebFilter implements WebFilter {
+
+    private final JwtUtil jwtUtil;
+    private final ReactiveUserDetailsService userDetailsService;
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        String authorization = exchange.getRequest().getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+        if (authorization == null) {
+            return chain.filter(exchange);
+        }
+
+        return authenticate(authorization)
+                .map(ReactiveSecurityContextHolder::withAuthentication)
+                .defaultIfEmpty(Context.empty())
+                .flatMap(context -> chain.filter(exchange).contextWrite(context));
+    }
+
+    private Mono<Authentication> authenticate(String authorization) {
+        return Mono.fromCallable(() -> jwtUtil.extractClaimsByAuthorization(authorization))
+                .flatMap(claims -> userDetailsService.findByUsername(claims.getSubject())
+                        .cast(CustomUserDetails.class)
+                        .filter(userDetails -> jwtUtil.validateClaims(claims, userDetails.getUsername(), userDetails.getLastModifiedDate()))
+                        .map(userDetails -> toAuthentication(userDetails, claims)))
+                .onErrorResume(e -> e instanceof JwtException
+                        || e instanceof UnauthorizedException
+                        || e instanceof NotFoundException, e -> Mono.empty());
+    }
+
+    private static Authentication toAuthentication(CustomUserDetails userDetails, TokenClaims claims) {
+        return new UsernamePasswordAuthenticationToken(userDetails, claims, userDetails.getAuthorities());
+    }
+}
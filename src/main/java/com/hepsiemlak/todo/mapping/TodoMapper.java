@@ -2,9 +2,11 @@ package com.hepsiemlak.todo.mapping;
 
 import com.hepsiemlak.todo.entity.Todo;
 import com.hepsiemlak.todo.model.todo.AddTodoRequest;
+import com.hepsiemlak.todo.model.todo.BatchUpdateTodoRequest;
 import com.hepsiemlak.todo.model.todo.TodoResponse;
 import com.hepsiemlak.todo.model.todo.UpdateTodoRequest;
 import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
 import org.mapstruct.MappingTarget;
 import org.mapstruct.NullValuePropertyMappingStrategy;
 import org.springframework.data.domain.Page;
@@ -19,6 +21,9 @@ public interface TodoMapper {
 
     Todo toEntity(UpdateTodoRequest updateTodoRequest, @MappingTarget Todo todo);
 
+    @Mapping(target = "id", ignore = true)
+    Todo toEntity(BatchUpdateTodoRequest batchUpdateTodoRequest, @MappingTarget Todo todo);
+
     TodoResponse toResponse(Todo todo);
 
     List<TodoResponse> toResponse(List<Todo> todos);
@@ -1,8 +1,11 @@
 package com.hepsiemlak.todo.mapping;
 
+import com.hepsiemlak.todo.entity.AccountDeletionJob;
 import com.hepsiemlak.todo.entity.User;
+import com.hepsiemlak.todo.model.user.AccountDeletionJobResponse;
 import com.hepsiemlak.todo.model.user.UserRequest;
 import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
 import org.mapstruct.NullValuePropertyMappingStrategy;
 
 @Mapper(componentModel = "spring", nullValuePropertyMappingStrategy = NullValuePropertyMappingStrategy.IGNORE)
@@ -10,4 +13,7 @@ public interface UserMapper {
 
     User toEntity(UserRequest userRequest);
 
+    @Mapping(target = "id", source = "jobId")
+    AccountDeletionJobResponse toResponse(AccountDeletionJob accountDeletionJob);
+
 }
@@ -0,0 +1,29 @@
+package com.hepsiemlak.todo.model.todo;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.Valid;
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.Size;
+import java.util.List;
+
+@Builder(toBuilder = true)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchTodoRequest {
+
+    @Valid
+    @Size(max = 500, message = "{errors.validation.size}")
+    private List<AddTodoRequest> create;
+
+    @Valid
+    @Size(max = 500, message = "{errors.validation.size}")
+    private List<BatchUpdateTodoRequest> update;
+
+    @Size(max = 500, message = "{errors.validation.size}")
+    private List<@NotBlank(message = "{errors.validation.not.blank}") String> delete;
+}
@@ -0,0 +1,29 @@
+package com.hepsiemlak.todo.model.todo;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Builder(toBuilder = true)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchTodoResponse {
+
+    private List<Result> create;
+    private List<Result> update;
+    private List<Result> delete;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Result {
+        private String id;
+        private int status;
+        private String message;
+    }
+}
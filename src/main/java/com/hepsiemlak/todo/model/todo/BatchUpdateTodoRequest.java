@@ -0,0 +1,28 @@
+package com.hepsiemlak.todo.model.todo;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.NotBlank;
+
+@Builder(toBuilder = true)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchUpdateTodoRequest {
+
+    @NotBlank(message = "{errors.validation.not.blank}")
+    private String id;
+
+    private String title;
+    private String description;
+    private Boolean completed;
+
+    /**
+     * Same as the If-Match header of a single update: the item is applied only while the todo
+     * still has this version.
+     */
+    private String ifMatch;
+}
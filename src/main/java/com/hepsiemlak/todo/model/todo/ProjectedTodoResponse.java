@@ -0,0 +1,13 @@
+package com.hepsiemlak.todo.model.todo;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.NoArgsConstructor;
+
+/**
+ * A todo read with a field projection. Fields that were not selected are left out of the JSON
+ * instead of being sent as null.
+ */
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ProjectedTodoResponse extends TodoResponse {
+}
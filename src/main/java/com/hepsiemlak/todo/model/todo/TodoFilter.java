@@ -0,0 +1,28 @@
+package com.hepsiemlak.todo.model.todo;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Sort;
+
+import java.util.List;
+import java.util.Set;
+
+@Builder(toBuilder = true)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TodoFilter {
+
+    public static final Set<String> FIELDS = Set.of("id", "title", "description", "completed");
+
+    public static final Set<String> SORT_FIELDS = Set.of("createdDate", "title", "completed");
+
+    private Boolean completed;
+    private String titlePrefix;
+    private String titleContains;
+    private String sort;
+    private Sort.Direction direction;
+    private List<String> fields;
+}
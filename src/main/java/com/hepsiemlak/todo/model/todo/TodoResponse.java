@@ -1,5 +1,6 @@
 package com.hepsiemlak.todo.model.todo;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -14,5 +15,11 @@ public class TodoResponse {
     private String id;
     private String title;
     private String description;
-    private boolean completed;
+    private Boolean completed;
+
+    /**
+     * Sent as the ETag rather than in the body.
+     */
+    @JsonIgnore
+    private Long version;
 }
@@ -0,0 +1,17 @@
+package com.hepsiemlak.todo.model.todo;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Builder(toBuilder = true)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TodoStatsResponse {
+
+    private long total;
+    private long completed;
+    private long open;
+}
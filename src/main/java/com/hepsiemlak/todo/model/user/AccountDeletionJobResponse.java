@@ -0,0 +1,25 @@
+package com.hepsiemlak.todo.model.user;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.hepsiemlak.todo.entity.AccountDeletionJob;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Builder(toBuilder = true)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class AccountDeletionJobResponse {
+
+    private String id;
+    private AccountDeletionJob.Status status;
+    private Long deletedTodos;
+    private Long createdDate;
+    private Long lastModifiedDate;
+    private String message;
+    private Integer attempts;
+    private Long nextAttemptDate;
+}
@@ -0,0 +1,30 @@
+package com.hepsiemlak.todo.model.user;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.Instant;
+
+/**
+ * Verified, immutable view of an access token. Built once per token by {@code JwtUtil}
+ * and carried as the credentials of the authenticated request.
+ */
+@Getter
+@Builder
+@ToString
+public class TokenClaims {
+
+    @ToString.Exclude
+    private final String token;
+
+    private final String subject;
+
+    private final Instant expiration;
+
+    private final Long lastModifiedDate;
+
+    public boolean isExpired() {
+        return expiration.isBefore(Instant.now());
+    }
+}
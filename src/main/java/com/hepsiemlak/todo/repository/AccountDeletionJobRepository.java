@@ -0,0 +1,19 @@
+package com.hepsiemlak.todo.repository;
+
+import com.couchbase.client.java.query.QueryScanConsistency;
+import com.hepsiemlak.todo.entity.AccountDeletionJob;
+import org.springframework.data.couchbase.repository.CouchbaseRepository;
+import org.springframework.data.couchbase.repository.Query;
+import org.springframework.data.couchbase.repository.ScanConsistency;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface AccountDeletionJobRepository extends CouchbaseRepository<AccountDeletionJob, String> {
+
+    String FIND_BY_STATUS_IN = "#{#n1ql.selectEntity} WHERE #{#n1ql.filter} AND status IN $1";
+
+    @Query(FIND_BY_STATUS_IN)
+    @ScanConsistency(query = QueryScanConsistency.REQUEST_PLUS)
+    List<AccountDeletionJob> findByStatusIn(Collection<AccountDeletionJob.Status> statuses);
+}
@@ -0,0 +1,142 @@
+package com.hepsiemlak.todo.repository;
+
+import com.couchbase.client.core.error.DocumentExistsException;
+import com.couchbase.client.core.error.DocumentNotFoundException;
+import com.couchbase.client.java.Collection;
+import com.hepsiemlak.todo.model.todo.TodoStatsResponse;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.couchbase.core.CouchbaseTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static com.couchbase.client.java.kv.DecrementOptions.decrementOptions;
+import static com.couchbase.client.java.kv.IncrementOptions.incrementOptions;
+import static com.couchbase.client.java.kv.InsertOptions.insertOptions;
+import static com.couchbase.client.java.kv.UpsertOptions.upsertOptions;
+
+/**
+ * Keeps the total and completed counts and the change version in counter documents in the todo
+ * bucket. Seeded counters expire after {@code todo-counters.expire-after}, which bounds how long
+ * any drift between the counters and the todos can last. The in-flight mark expires as well, so
+ * a mark left behind by a node that died mid-write only holds off seeding until then.
+ */
+@Repository
+@Profile("!memory")
+public class CouchbaseTodoCounterRepository implements TodoCounterRepository {
+
+    private static final String TOTAL_PREFIX = "todo-counter::total::";
+    private static final String COMPLETED_PREFIX = "todo-counter::completed::";
+    private static final String VERSION_PREFIX = "todo-counter::version::";
+    private static final String WRITING_PREFIX = "todo-counter::writing::";
+
+    private final CouchbaseTemplate todoTemplate;
+    private final Duration expireAfter;
+
+    public CouchbaseTodoCounterRepository(@Qualifier("todoTemplate") CouchbaseTemplate todoTemplate,
+                                          @Value("${todo-counters.expire-after:24h}") Duration expireAfter) {
+        this.todoTemplate = todoTemplate;
+        this.expireAfter = expireAfter;
+    }
+
+    @Override
+    public Optional<TodoStatsResponse> findByUsername(String username) {
+        try {
+            long total = collection().get(TOTAL_PREFIX + username).contentAs(Long.class);
+            long completed = collection().get(COMPLETED_PREFIX + username).contentAs(Long.class);
+            return Optional.of(TodoStatsResponse.builder()
+                    .total(total)
+                    .completed(completed)
+                    .open(Math.max(total - completed, 0))
+                    .build());
+        } catch (DocumentNotFoundException e) {
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public boolean seed(String username, long total, long completed) {
+        try {
+            // The total is created first and decides which seed wins; the completed count follows.
+            collection().insert(TOTAL_PREFIX + username, total, insertOptions().expiry(expireAfter));
+        } catch (DocumentExistsException e) {
+            return false;
+        }
+        collection().upsert(COMPLETED_PREFIX + username, completed, upsertOptions().expiry(expireAfter));
+        return true;
+    }
+
+    @Override
+    public Optional<Long> findVersionByUsername(String username) {
+        try {
+            return Optional.of(collection().get(VERSION_PREFIX + username).contentAs(Long.class));
+        } catch (DocumentNotFoundException e) {
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public void seedVersion(String username, long version) {
+        collection().upsert(VERSION_PREFIX + username, version, upsertOptions().expiry(expireAfter));
+    }
+
+    @Override
+    public void startWrite(String username) {
+        collection().binary().increment(WRITING_PREFIX + username,
+                incrementOptions().delta(1).initial(1).expiry(expireAfter));
+        add(VERSION_PREFIX + username, 1);
+    }
+
+    @Override
+    public boolean hasWritesInFlight(String username) {
+        try {
+            return collection().get(WRITING_PREFIX + username).contentAs(Long.class) > 0;
+        } catch (DocumentNotFoundException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public void increment(String username, long total, long completed) {
+        add(TOTAL_PREFIX + username, total);
+        add(COMPLETED_PREFIX + username, completed);
+        add(VERSION_PREFIX + username, 1);
+        // Last, so that a write no longer in flight has already moved the version on.
+        add(WRITING_PREFIX + username, -1);
+    }
+
+    @Override
+    public void deleteByUsername(String username) {
+        remove(TOTAL_PREFIX + username);
+        remove(COMPLETED_PREFIX + username);
+        remove(VERSION_PREFIX + username);
+    }
+
+    private void add(String id, long delta) {
+        try {
+            // Without an initial value a missing counter fails instead of being created.
+            if (delta > 0) {
+                collection().binary().increment(id, incrementOptions().delta(delta));
+            } else if (delta < 0) {
+                collection().binary().decrement(id, decrementOptions().delta(-delta));
+            }
+        } catch (DocumentNotFoundException e) {
+            // Not seeded yet; the next read counts the todos.
+        }
+    }
+
+    private void remove(String id) {
+        try {
+            collection().remove(id);
+        } catch (DocumentNotFoundException e) {
+            // Already gone.
+        }
+    }
+
+    private Collection collection() {
+        return todoTemplate.getCouchbaseClientFactory().getBucket().defaultCollection();
+    }
+}
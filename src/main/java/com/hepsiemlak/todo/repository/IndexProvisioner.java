@@ -0,0 +1,283 @@
+package com.hepsiemlak.todo.repository;
+
+import com.couchbase.client.core.error.IndexExistsException;
+import com.couchbase.client.java.Cluster;
+import com.couchbase.client.java.json.JsonArray;
+import com.couchbase.client.java.json.JsonObject;
+import com.couchbase.client.java.manager.query.QueryIndex;
+import com.couchbase.client.java.query.QueryOptions;
+import com.hepsiemlak.todo.entity.AccountDeletionJob;
+import com.hepsiemlak.todo.entity.Todo;
+import com.hepsiemlak.todo.entity.Token;
+import com.hepsiemlak.todo.model.todo.TodoFilter;
+import com.hepsiemlak.todo.service.TodoRules;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.couchbase.core.CouchbaseTemplate;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static com.couchbase.client.java.query.QueryOptions.queryOptions;
+
+/**
+ * Creates the secondary indexes the repository queries rely on, waits until they are online and
+ * then runs EXPLAIN on each of those queries, so that a query falling back to a primary scan is
+ * caught at startup rather than under load. The statements come from the repositories' own
+ * constants and builders, including every filter and sort shape of the projected listing. User
+ * and token lookups by id are KV gets and need no index.
+ */
+@Component
+@Profile("!memory")
+public class IndexProvisioner {
+
+    private static final Logger logger = LoggerFactory.getLogger(IndexProvisioner.class);
+
+    private static final String CREATE_INDEX = "CREATE INDEX `%s` ON `%s`(%s) WHERE `_class` = \"%s\" WITH {\"defer_build\": true}";
+
+    private final List<IndexDefinition> indexes = new ArrayList<>();
+    private final List<QueryPlan> queries = new ArrayList<>();
+    private final boolean provision;
+    private final Duration buildTimeout;
+    private final boolean failOnPrimaryScan;
+
+    public IndexProvisioner(@Qualifier("userTemplate") CouchbaseTemplate userTemplate,
+                            @Qualifier("todoTemplate") CouchbaseTemplate todoTemplate,
+                            @Qualifier("tokenTemplate") CouchbaseTemplate tokenTemplate,
+                            @Value("${couchbase.indexes.provision:true}") boolean provision,
+                            @Value("${couchbase.indexes.build-timeout:5m}") Duration buildTimeout,
+                            @Value("${couchbase.indexes.fail-on-primary-scan:true}") boolean failOnPrimaryScan) {
+        this.provision = provision;
+        this.buildTimeout = buildTimeout;
+        this.failOnPrimaryScan = failOnPrimaryScan;
+
+        // Trailing keys make the index cover the projected listing, which then never fetches documents.
+        // The creation date is keyed as the queries order by it, with todos that predate it at 0.
+        indexes.add(new IndexDefinition(todoTemplate, "idx_todo_username_created_or_zero", Todo.class,
+                "username, IFMISSINGORNULL(createdDate, 0), title, completed, description"));
+        indexes.add(new IndexDefinition(tokenTemplate, "idx_token_expiration", Token.class,
+                "expirationDate"));
+        indexes.add(new IndexDefinition(tokenTemplate, "idx_token_username_expiration", Token.class,
+                "username, expirationDate DESC, consumed"));
+        indexes.add(new IndexDefinition(userTemplate, "idx_account_deletion_job_status", AccountDeletionJob.class,
+                "status"));
+
+        String todoBucket = todoTemplate.getBucketName();
+        String tokenBucket = tokenTemplate.getBucketName();
+        JsonObject todoParameters = JsonObject.create()
+                .put("class", Todo.class.getName())
+                .put("username", "username")
+                .put("completed", true)
+                .put("createdBefore", 0L)
+                .put("limit", 1);
+        JsonObject tokenParameters = JsonObject.create()
+                .put("class", Token.class.getName())
+                .put("now", 0L)
+                .put("maxPerUser", 1)
+                .put("after", "")
+                .put("fromUsername", "")
+                .put("toUsername", "")
+                .put("limit", 1);
+
+        explain(new QueryPlan("TodoRepository.findByUsername", todoTemplate,
+                entityStatement(TodoRepository.FIND_BY_USERNAME, todoBucket, Todo.class),
+                queryOptions().parameters(JsonArray.from("username"))));
+        explain(new QueryPlan("TodoRepository.findFirstSliceByUsername", todoTemplate,
+                entityStatement(TodoRepository.FIND_FIRST_SLICE_BY_USERNAME, todoBucket, Todo.class),
+                queryOptions().parameters(JsonArray.from("username", 1))));
+        explain(new QueryPlan("TodoRepository.findSliceByUsernameAfter", todoTemplate,
+                entityStatement(TodoRepository.FIND_SLICE_BY_USERNAME_AFTER, todoBucket, Todo.class),
+                queryOptions().parameters(JsonArray.from("username", 0L, "", 1))));
+        explain(new QueryPlan("TodoRepository.countByUsername", todoTemplate,
+                String.format(TodoRepositoryCustomImpl.COUNT_BY_USERNAME, todoBucket),
+                queryOptions().parameters(todoParameters)));
+        explain(new QueryPlan("TodoRepository.countByUsernameAndCompleted", todoTemplate,
+                String.format(TodoRepositoryCustomImpl.COUNT_BY_USERNAME_AND_COMPLETED, todoBucket),
+                queryOptions().parameters(todoParameters)));
+        projectedVariants().forEach((variant, filter) -> {
+            TodoRepositoryCustomImpl.ProjectedQuery query = TodoRepositoryCustomImpl.projectedQuery(todoBucket, "username",
+                    filter, TodoRules.toSort(filter));
+            explain(new QueryPlan("TodoRepository.findProjectedByUsername(" + variant + ")", todoTemplate,
+                    query.select, queryOptions().parameters(query.selectParameters(PageRequest.of(0, 1)))));
+            explain(new QueryPlan("TodoRepository.countProjectedByUsername(" + variant + ")", todoTemplate,
+                    query.count, queryOptions().parameters(query.parameters)));
+        });
+        explain(new QueryPlan("TodoRepository.deleteChunkByUsername", todoTemplate,
+                String.format(TodoRepositoryCustomImpl.DELETE_CHUNK_BY_USERNAME, todoBucket),
+                queryOptions().parameters(todoParameters)));
+        explain(new QueryPlan("TokenRepository.findExpiredIds", tokenTemplate,
+                String.format(TokenRepositoryCustomImpl.FIND_EXPIRED_IDS, tokenBucket),
+                queryOptions().parameters(tokenParameters)));
+        explain(new QueryPlan("TokenRepository.findUsernamesWithTokens", tokenTemplate,
+                String.format(TokenRepositoryCustomImpl.FIND_USERNAMES_WITH_TOKENS, tokenBucket),
+                queryOptions().parameters(tokenParameters)));
+        explain(new QueryPlan("TokenRepository.findExcessIds", tokenTemplate,
+                String.format(TokenRepositoryCustomImpl.FIND_EXCESS_IDS, tokenBucket),
+                queryOptions().parameters(tokenParameters)));
+        explain(new QueryPlan("AccountDeletionJobRepository.findByStatusIn", userTemplate,
+                entityStatement(AccountDeletionJobRepository.FIND_BY_STATUS_IN, userTemplate.getBucketName(), AccountDeletionJob.class),
+                queryOptions().parameters(JsonArray.from(JsonArray.from(
+                        AccountDeletionJob.Status.PENDING.name(), AccountDeletionJob.Status.RUNNING.name())))));
+    }
+
+    @PostConstruct
+    public void provision() {
+        if (provision) {
+            createIndexes();
+        }
+        verifyQueryPlans();
+    }
+
+    private void createIndexes() {
+        Map<String, List<IndexDefinition>> byBucket = indexes.stream()
+                .collect(Collectors.groupingBy(index -> index.template.getBucketName(), LinkedHashMap::new, Collectors.toList()));
+
+        byBucket.forEach((bucketName, definitions) -> {
+            Cluster cluster = definitions.get(0).template.getCouchbaseClientFactory().getCluster();
+            Set<String> existing = cluster.queryIndexes().getAllIndexes(bucketName).stream()
+                    .map(QueryIndex::name)
+                    .collect(Collectors.toSet());
+
+            boolean created = false;
+            for (IndexDefinition index : definitions) {
+                if (!existing.contains(index.name)) {
+                    created |= create(cluster, bucketName, index);
+                }
+            }
+            if (created) {
+                cluster.queryIndexes().buildDeferredIndexes(bucketName);
+            }
+
+            List<String> names = definitions.stream().map(index -> index.name).collect(Collectors.toList());
+            cluster.queryIndexes().watchIndexes(bucketName, names, buildTimeout);
+        });
+    }
+
+    private boolean create(Cluster cluster, String bucketName, IndexDefinition index) {
+        logger.info("Creating index {} on {}", index.name, bucketName);
+        try {
+            cluster.query(String.format(CREATE_INDEX, index.name, bucketName, index.keys, index.entityClass.getName()));
+            return true;
+        } catch (IndexExistsException e) {
+            // Another instance created it since the indexes were listed; it builds it as well.
+            return false;
+        }
+    }
+
+    private void verifyQueryPlans() {
+        List<String> primaryScans = new ArrayList<>();
+        for (QueryPlan query : queries) {
+            Cluster cluster = query.template.getCouchbaseClientFactory().getCluster();
+            JsonObject plan = cluster
+                    .query("EXPLAIN " + query.statement, query.options)
+                    .rowsAsObject()
+                    .get(0)
+                    .getObject("plan");
+
+            if (usesPrimaryScan(plan.toMap())) {
+                logger.warn("{} would use a primary scan", query.name);
+                primaryScans.add(query.name);
+            }
+        }
+
+        if (!primaryScans.isEmpty() && failOnPrimaryScan) {
+            throw new IllegalStateException("Queries would use a primary scan: " + String.join(", ", primaryScans));
+        }
+    }
+
+    /**
+     * Several filter shapes share a count statement, which only needs to be explained once.
+     */
+    private void explain(QueryPlan query) {
+        if (queries.stream().noneMatch(existing -> existing.statement.equals(query.statement))) {
+            queries.add(query);
+        }
+    }
+
+    /**
+     * Expands the SpEL placeholders of a repository {@code @Query} the way Spring Data does for
+     * an entity stored with its class name in {@code _class}. Only the predicates matter for the
+     * plan, and those are taken verbatim from the repository.
+     */
+    static String entityStatement(String statement, String bucketName, Class<?> entityClass) {
+        String bucket = "`" + bucketName + "`";
+        return statement
+                .replace("#{#n1ql.selectEntity}",
+                        "SELECT META(" + bucket + ").id AS __id, META(" + bucket + ").cas AS __cas, " + bucket + ".* FROM " + bucket)
+                .replace("#{#n1ql.filter}", "`_class` = \"" + entityClass.getName() + "\"")
+                .replace("#{#n1ql.bucket}", bucket);
+    }
+
+    /**
+     * The filter and sort shapes of the projected listing, each of which yields a different
+     * statement.
+     */
+    private static Map<String, TodoFilter> projectedVariants() {
+        Map<String, TodoFilter> variants = new LinkedHashMap<>();
+        variants.put("completed", TodoFilter.builder().completed(true).build());
+        variants.put("titlePrefix", TodoFilter.builder().titlePrefix("t").build());
+        variants.put("titleContains", TodoFilter.builder().titleContains("t").build());
+        variants.put("sort=title", TodoFilter.builder().sort("title").build());
+        variants.put("sort=completed", TodoFilter.builder().sort("completed").direction(Sort.Direction.DESC).build());
+        variants.put("fields", TodoFilter.builder().fields(List.of("id", "title")).build());
+        return variants;
+    }
+
+    static boolean usesPrimaryScan(Object node) {
+        if (node instanceof Map) {
+            Map<?, ?> operator = (Map<?, ?>) node;
+            Object name = operator.get("#operator");
+            if (name instanceof String && ((String) name).startsWith("PrimaryScan")) {
+                return true;
+            }
+            return operator.values().stream().anyMatch(IndexProvisioner::usesPrimaryScan);
+        }
+        if (node instanceof Collection) {
+            return ((Collection<?>) node).stream().anyMatch(IndexProvisioner::usesPrimaryScan);
+        }
+        return false;
+    }
+
+    private static class IndexDefinition {
+
+        private final CouchbaseTemplate template;
+        private final String name;
+        private final Class<?> entityClass;
+        private final String keys;
+
+        IndexDefinition(CouchbaseTemplate template, String name, Class<?> entityClass, String keys) {
+            this.template = template;
+            this.name = name;
+            this.entityClass = entityClass;
+            this.keys = keys;
+        }
+    }
+
+    private static class QueryPlan {
+
+        private final String name;
+        private final CouchbaseTemplate template;
+        private final String statement;
+        private final QueryOptions options;
+
+        QueryPlan(String name, CouchbaseTemplate template, String statement, QueryOptions options) {
+            this.name = name;
+            this.template = template;
+            this.statement = statement;
+            this.options = options;
+        }
+    }
+}
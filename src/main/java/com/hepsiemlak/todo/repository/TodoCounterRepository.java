@@ -0,0 +1,54 @@
+package com.hepsiemlak.todo.repository;
+
+import com.hepsiemlak.todo.model.todo.TodoStatsResponse;
+
+import java.util.Optional;
+
+/**
+ * Per-user todo counts and a change version, kept as atomic counter documents next to the todos.
+ */
+public interface TodoCounterRepository {
+
+    /**
+     * The counts of the user, or empty when the counters have not been seeded or have expired.
+     */
+    Optional<TodoStatsResponse> findByUsername(String username);
+
+    /**
+     * Creates the counters of the user unless they already exist.
+     *
+     * @return whether the counters were created, {@code false} when another seed got there first
+     */
+    boolean seed(String username, long total, long completed);
+
+    /**
+     * The change version of the user's todos, or empty when it has not been seeded or has expired.
+     */
+    Optional<Long> findVersionByUsername(String username);
+
+    void seedVersion(String username, long version);
+
+    /**
+     * Marks a write of the user's todos as in flight and moves the version on by one, before the
+     * write is made. The mark is created when missing, so unlike the counters it is never lost.
+     */
+    void startWrite(String username);
+
+    /**
+     * Whether a write started with {@link #startWrite} has not yet been recorded by
+     * {@link #increment}.
+     */
+    boolean hasWritesInFlight(String username);
+
+    /**
+     * Ends a write started with {@link #startWrite}: adds the deltas to the counters of the user
+     * and moves the version on by one. Counters that do not exist are left alone rather than
+     * started from zero, so they are seeded instead.
+     */
+    void increment(String username, long total, long completed);
+
+    /**
+     * Drops the counters and the version; writes still in flight stay marked.
+     */
+    void deleteByUsername(String username);
+}
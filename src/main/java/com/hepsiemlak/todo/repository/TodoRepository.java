@@ -1,11 +1,44 @@
 package com.hepsiemlak.todo.repository;
 
+import com.couchbase.client.java.query.QueryScanConsistency;
 import com.hepsiemlak.todo.entity.Todo;
 import org.springframework.data.couchbase.repository.CouchbaseRepository;
-import org.springframework.data.domain.Page;
+import org.springframework.data.couchbase.repository.Query;
+import org.springframework.data.couchbase.repository.ScanConsistency;
 import org.springframework.data.domain.Pageable;
 
-public interface TodoRepository extends CouchbaseRepository<Todo, String> {
+import java.util.List;
 
-    Page<Todo> findByUsername(String username, Pageable pageable);
+/**
+ * The statements are spelled out, rather than derived from the method names, so that
+ * {@link IndexProvisioner} can check the plan of exactly what runs; the reactive repository
+ * shares them. Todos saved before {@code createdDate} existed have none; the slices order them as
+ * created at 0, the same position their cursor encodes.
+ */
+public interface TodoRepository extends CouchbaseRepository<Todo, String>, TodoRepositoryCustom {
+
+    String FIND_BY_USERNAME = "#{#n1ql.selectEntity} WHERE #{#n1ql.filter} AND username = $1";
+
+    String FIND_FIRST_SLICE_BY_USERNAME = "#{#n1ql.selectEntity} WHERE #{#n1ql.filter} AND username = $1 " +
+            "ORDER BY IFMISSINGORNULL(createdDate, 0), META().id LIMIT $2";
+
+    String FIND_SLICE_BY_USERNAME_AFTER = "#{#n1ql.selectEntity} WHERE #{#n1ql.filter} AND username = $1 " +
+            "AND IFMISSINGORNULL(createdDate, 0) >= $2 " +
+            "AND (IFMISSINGORNULL(createdDate, 0) > $2 OR META().id > $3) " +
+            "ORDER BY IFMISSINGORNULL(createdDate, 0), META().id LIMIT $4";
+
+    /**
+     * One page of the user's todos, without the count query a {@code Page} would run. Totals come
+     * from {@link TodoCounterRepository}. The page is tagged with the change version read before
+     * it, so the scan waits for every write that version covers.
+     */
+    @Query(FIND_BY_USERNAME)
+    @ScanConsistency(query = QueryScanConsistency.REQUEST_PLUS)
+    List<Todo> findByUsername(String username, Pageable pageable);
+
+    @Query(FIND_FIRST_SLICE_BY_USERNAME)
+    List<Todo> findFirstSliceByUsername(String username, int limit);
+
+    @Query(FIND_SLICE_BY_USERNAME_AFTER)
+    List<Todo> findSliceByUsernameAfter(String username, long createdDate, String id, int limit);
 }
@@ -0,0 +1,61 @@
+package com.hepsiemlak.todo.repository;
+
+import com.hepsiemlak.todo.entity.Todo;
+import com.hepsiemlak.todo.model.todo.TodoFilter;
+import com.hepsiemlak.todo.model.todo.TodoResponse;
+import org.springframework.data.domain.Pageable;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+public interface TodoRepositoryCustom {
+
+    /**
+     * Deletes up to {@code limit} todos of the user created no later than {@code createdBefore}
+     * and returns how many were removed. Todos without a creation date count as the oldest. The
+     * scan waits for the index to catch up with earlier writes, so none of them is missed.
+     */
+    long deleteChunkByUsername(String username, long createdBefore, int limit);
+
+    long countByUsername(String username);
+
+    long countByUsernameAndCompleted(String username, boolean completed);
+
+    /**
+     * Runs the filter, sort and field projection in N1QL and reads the rows straight into
+     * responses, selecting only the requested fields. No total is computed; see
+     * {@link #countProjectedByUsername}. Like the plain listing, the page is tagged with the change
+     * version read before it, so the scan waits for every write that version covers.
+     */
+    List<TodoResponse> findProjectedByUsername(String username, TodoFilter filter, Pageable pageable);
+
+    /**
+     * Counts the todos matching the filter, which takes a scan of the user's index range. It is as
+     * consistent as the page it totals.
+     */
+    long countProjectedByUsername(String username, TodoFilter filter);
+
+    /**
+     * Inserts the new todos as pipelined KV operations.
+     *
+     * @return the failures keyed by todo id, empty when every write succeeded
+     */
+    Map<String, Throwable> insertAll(Collection<Todo> todos);
+
+    /**
+     * Replaces the todos as pipelined KV operations, each only while the stored todo still has
+     * the version of the given one. A todo changed in the meantime fails with an
+     * {@link org.springframework.dao.OptimisticLockingFailureException}.
+     *
+     * @return the failures keyed by todo id, empty when every write succeeded
+     */
+    Map<String, Throwable> replaceAll(Collection<Todo> todos);
+
+    /**
+     * Removes the todos as pipelined KV operations.
+     *
+     * @return the failures keyed by todo id, empty when every remove succeeded
+     */
+    Map<String, Throwable> removeAllById(Collection<String> ids);
+}
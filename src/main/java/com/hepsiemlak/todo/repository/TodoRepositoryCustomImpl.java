@@ -0,0 +1,246 @@
+package com.hepsiemlak.todo.repository;
+
+import com.couchbase.client.java.json.JsonObject;
+import com.couchbase.client.java.query.QueryMetrics;
+import com.couchbase.client.java.query.QueryResult;
+import com.couchbase.client.java.query.QueryScanConsistency;
+import com.hepsiemlak.todo.entity.Todo;
+import com.hepsiemlak.todo.model.todo.ProjectedTodoResponse;
+import com.hepsiemlak.todo.model.todo.TodoFilter;
+import com.hepsiemlak.todo.model.todo.TodoResponse;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.couchbase.core.CouchbaseTemplate;
+import org.springframework.data.couchbase.core.ReactiveCouchbaseTemplate;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.function.Function;
+
+import static com.couchbase.client.java.query.QueryOptions.queryOptions;
+
+public class TodoRepositoryCustomImpl implements TodoRepositoryCustom {
+
+    static final String DELETE_CHUNK_BY_USERNAME = "DELETE FROM `%s` WHERE `_class` = $class AND username = $username " +
+            "AND IFMISSINGORNULL(createdDate, 0) <= $createdBefore LIMIT $limit";
+
+    static final String COUNT_BY_USERNAME = "SELECT RAW COUNT(*) FROM `%s` t " +
+            "WHERE t.`_class` = $class AND t.username = $username";
+
+    static final String COUNT_BY_USERNAME_AND_COMPLETED = "SELECT RAW COUNT(*) FROM `%s` t " +
+            "WHERE t.`_class` = $class AND t.username = $username AND t.completed = $completed";
+
+    private static final Map<String, String> FIELD_EXPRESSIONS = Map.of(
+            "id", "META(t).id AS id",
+            "title", "t.title",
+            "description", "t.description",
+            "completed", "t.completed");
+
+    private static final Map<String, String> SORT_EXPRESSIONS = Map.of(
+            "createdDate", "IFMISSINGORNULL(t.createdDate, 0)",
+            "title", "t.title",
+            "completed", "t.completed");
+
+    private final CouchbaseTemplate todoTemplate;
+    private final int batchConcurrency;
+
+    public TodoRepositoryCustomImpl(@Qualifier("todoTemplate") CouchbaseTemplate todoTemplate,
+                                    @Value("${couchbase.batch.concurrency:64}") int batchConcurrency) {
+        this.todoTemplate = todoTemplate;
+        this.batchConcurrency = batchConcurrency;
+    }
+
+    @Override
+    public long deleteChunkByUsername(String username, long createdBefore, int limit) {
+        QueryResult result = todoTemplate.getCouchbaseClientFactory().getCluster().query(
+                String.format(DELETE_CHUNK_BY_USERNAME, todoTemplate.getBucketName()),
+                queryOptions()
+                        .parameters(JsonObject.create()
+                                .put("class", Todo.class.getName())
+                                .put("username", username)
+                                .put("createdBefore", createdBefore)
+                                .put("limit", limit))
+                        .scanConsistency(QueryScanConsistency.REQUEST_PLUS)
+                        .metrics(true));
+
+        return result.metaData().metrics().map(QueryMetrics::mutationCount).orElse(0L);
+    }
+
+    /**
+     * The counts seed the todo counters, so they wait for the index to catch up with every write
+     * made before them.
+     */
+    @Override
+    public long countByUsername(String username) {
+        return count(COUNT_BY_USERNAME, JsonObject.create()
+                .put("class", Todo.class.getName())
+                .put("username", username));
+    }
+
+    @Override
+    public long countByUsernameAndCompleted(String username, boolean completed) {
+        return count(COUNT_BY_USERNAME_AND_COMPLETED, JsonObject.create()
+                .put("class", Todo.class.getName())
+                .put("username", username)
+                .put("completed", completed));
+    }
+
+    @Override
+    public List<TodoResponse> findProjectedByUsername(String username, TodoFilter filter, Pageable pageable) {
+        ProjectedQuery query = projectedQuery(todoTemplate.getBucketName(), username, filter, pageable.getSort());
+
+        Class<? extends TodoResponse> rowType = filter.getFields() != null && !filter.getFields().isEmpty()
+                ? ProjectedTodoResponse.class
+                : TodoResponse.class;
+        return new ArrayList<>(todoTemplate.getCouchbaseClientFactory().getCluster()
+                .query(query.select, queryOptions()
+                        .readonly(true)
+                        .parameters(query.selectParameters(pageable))
+                        .scanConsistency(QueryScanConsistency.REQUEST_PLUS))
+                .rowsAs(rowType));
+    }
+
+    @Override
+    public long countProjectedByUsername(String username, TodoFilter filter) {
+        ProjectedQuery query = projectedQuery(todoTemplate.getBucketName(), username, filter, Sort.unsorted());
+
+        return todoTemplate.getCouchbaseClientFactory().getCluster()
+                .query(query.count, queryOptions()
+                        .readonly(true)
+                        .parameters(query.parameters)
+                        .scanConsistency(QueryScanConsistency.REQUEST_PLUS))
+                .rowsAs(Long.class)
+                .get(0);
+    }
+
+    /**
+     * Builds the statements {@link #findProjectedByUsername} and {@link #countProjectedByUsername}
+     * run, which {@link IndexProvisioner} explains as well.
+     */
+    static ProjectedQuery projectedQuery(String bucketName, String username, TodoFilter filter, Sort sort) {
+        JsonObject parameters = JsonObject.create()
+                .put("class", Todo.class.getName())
+                .put("username", username);
+
+        StringBuilder where = new StringBuilder(" WHERE t.`_class` = $class AND t.username = $username");
+        if (filter.getCompleted() != null) {
+            where.append(" AND t.completed = $completed");
+            parameters.put("completed", filter.getCompleted());
+        }
+        if (filter.getTitlePrefix() != null && !filter.getTitlePrefix().isEmpty()) {
+            where.append(" AND t.title LIKE $titlePrefix");
+            parameters.put("titlePrefix", escapeLike(filter.getTitlePrefix()) + "%");
+        }
+        if (filter.getTitleContains() != null && !filter.getTitleContains().isEmpty()) {
+            where.append(" AND CONTAINS(LOWER(t.title), $titleContains)");
+            parameters.put("titleContains", filter.getTitleContains().toLowerCase());
+        }
+
+        String from = " FROM `" + bucketName + "` t";
+        String select = "SELECT " + projection(filter.getFields()) + from + where + orderBy(sort)
+                + " LIMIT $limit OFFSET $offset";
+        String count = "SELECT RAW COUNT(*)" + from + where;
+
+        return new ProjectedQuery(select, count, parameters);
+    }
+
+    @Override
+    public Map<String, Throwable> insertAll(Collection<Todo> todos) {
+        ReactiveCouchbaseTemplate reactive = todoTemplate.reactive();
+        return collectFailures(Flux.fromIterable(todos), Todo::getId,
+                todo -> reactive.insertById(Todo.class).one(todo));
+    }
+
+    @Override
+    public Map<String, Throwable> replaceAll(Collection<Todo> todos) {
+        ReactiveCouchbaseTemplate reactive = todoTemplate.reactive();
+        return collectFailures(Flux.fromIterable(todos), Todo::getId,
+                todo -> reactive.replaceById(Todo.class).one(todo));
+    }
+
+    @Override
+    public Map<String, Throwable> removeAllById(Collection<String> ids) {
+        ReactiveCouchbaseTemplate reactive = todoTemplate.reactive();
+        return collectFailures(Flux.fromIterable(ids), Function.identity(),
+                id -> reactive.removeById().one(id));
+    }
+
+    private long count(String statement, JsonObject parameters) {
+        return todoTemplate.getCouchbaseClientFactory().getCluster()
+                .query(String.format(statement, todoTemplate.getBucketName()), queryOptions()
+                        .readonly(true)
+                        .parameters(parameters)
+                        .scanConsistency(QueryScanConsistency.REQUEST_PLUS))
+                .rowsAs(Long.class)
+                .get(0);
+    }
+
+    private static String projection(List<String> fields) {
+        if (fields == null || fields.isEmpty()) {
+            return String.join(", ", FIELD_EXPRESSIONS.get("id"), FIELD_EXPRESSIONS.get("title"),
+                    FIELD_EXPRESSIONS.get("description"), FIELD_EXPRESSIONS.get("completed"));
+        }
+        StringJoiner projection = new StringJoiner(", ");
+        fields.forEach(field -> projection.add(expression(FIELD_EXPRESSIONS, field)));
+        return projection.toString();
+    }
+
+    private static String orderBy(Sort sort) {
+        StringJoiner orderBy = new StringJoiner(", ", " ORDER BY ", "");
+        sort.forEach(order -> orderBy.add(expression(SORT_EXPRESSIONS, order.getProperty()) + " " + order.getDirection().name()));
+        orderBy.add("META(t).id");
+        return orderBy.toString();
+    }
+
+    private static String expression(Map<String, String> expressions, String field) {
+        String expression = expressions.get(field);
+        if (expression == null) {
+            throw new IllegalArgumentException("Unknown todo field " + field);
+        }
+        return expression;
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    private <T> Map<String, Throwable> collectFailures(Flux<T> items,
+                                                       Function<T, String> idExtractor,
+                                                       Function<T, Mono<?>> operation) {
+        return items
+                .flatMap(item -> operation.apply(item)
+                        .then(Mono.<Map.Entry<String, Throwable>>empty())
+                        .onErrorResume(e -> Mono.just(Map.entry(idExtractor.apply(item), e))), batchConcurrency)
+                .collectMap(Map.Entry::getKey, Map.Entry::getValue)
+                .block();
+    }
+
+    static final class ProjectedQuery {
+
+        final String select;
+        final String count;
+        final JsonObject parameters;
+
+        ProjectedQuery(String select, String count, JsonObject parameters) {
+            this.select = select;
+            this.count = count;
+            this.parameters = parameters;
+        }
+
+        /**
+         * The filter parameters plus the page bounds, which only the select takes.
+         */
+        JsonObject selectParameters(Pageable pageable) {
+            return JsonObject.from(parameters.toMap())
+                    .put("limit", pageable.getPageSize())
+                    .put("offset", pageable.getOffset());
+        }
+    }
+}
@@ -5,8 +5,9 @@ import org.springframework.data.couchbase.repository.CouchbaseRepository;
 
 import java.util.Optional;
 
-public interface TokenRepository extends CouchbaseRepository<Token, String> {
-
-    Optional<Token> findByRefreshToken(String refreshToken);
+public interface TokenRepository extends CouchbaseRepository<Token, String>, TokenRepositoryCustom {
 
+    default Optional<Token> findByRefreshToken(String refreshToken) {
+        return findById(Token.idOf(refreshToken));
+    }
 }
@@ -0,0 +1,48 @@
+package com.hepsiemlak.todo.repository;
+
+import com.hepsiemlak.todo.entity.Token;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+public interface TokenRepositoryCustom {
+
+    /**
+     * Inserts a new token expiring with it, failing with a duplicate key if the id exists.
+     */
+    Token insert(Token token);
+
+    /**
+     * Replaces the token if its version still matches the stored CAS, failing with an
+     * optimistic locking failure otherwise. The expiry is set again, as a replace clears it.
+     */
+    Token replace(Token token);
+
+    /**
+     * Ids of tokens whose expirationDate has passed, served by an index on expirationDate.
+     * Tokens written with a document expiry never show up here; this catches older ones.
+     */
+    List<String> findExpiredIds(long now, int limit);
+
+    /**
+     * The next {@code limit} usernames after {@code after}, in order, of users with unexpired
+     * tokens, served by an index on (username, expirationDate). Pages through the users for
+     * {@link #findExcessIds}.
+     */
+    List<String> findUsernamesWithTokens(String after, long now, int limit);
+
+    /**
+     * Ids of unexpired, unconsumed tokens beyond the newest {@code maxPerUser} of each user from
+     * {@code fromUsername} to {@code toUsername}, both included. Tokens are ranked within that
+     * page of users only, through the same index.
+     */
+    List<String> findExcessIds(int maxPerUser, long now, String fromUsername, String toUsername);
+
+    /**
+     * Removes the tokens with at most {@code concurrency} operations in flight and returns the
+     * failures by id. A token that is already gone is not a failure, as another reaper or its
+     * own expiry got there first.
+     */
+    Map<String, Throwable> removeAllById(Collection<String> ids, int concurrency);
+}
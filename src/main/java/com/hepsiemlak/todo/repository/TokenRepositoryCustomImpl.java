@@ -0,0 +1,105 @@
+package com.hepsiemlak.todo.repository;
+
+import com.couchbase.client.core.error.DocumentNotFoundException;
+import com.couchbase.client.java.json.JsonObject;
+import com.couchbase.client.java.query.QueryScanConsistency;
+import com.hepsiemlak.todo.entity.Token;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.dao.DataRetrievalFailureException;
+import org.springframework.data.couchbase.core.CouchbaseTemplate;
+import org.springframework.data.couchbase.core.ReactiveCouchbaseTemplate;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import static com.couchbase.client.java.query.QueryOptions.queryOptions;
+
+public class TokenRepositoryCustomImpl implements TokenRepositoryCustom {
+
+    static final String FIND_EXPIRED_IDS = "SELECT RAW META(t).id FROM `%s` t " +
+            "WHERE t.`_class` = $class AND t.expirationDate < $now LIMIT $limit";
+
+    static final String FIND_USERNAMES_WITH_TOKENS = "SELECT RAW t.username FROM `%s` t " +
+            "WHERE t.`_class` = $class AND t.username > $after AND t.expirationDate >= $now " +
+            "GROUP BY t.username ORDER BY t.username LIMIT $limit";
+
+    static final String FIND_EXCESS_IDS = "SELECT RAW r.id FROM (" +
+            "SELECT META(t).id AS id, ROW_NUMBER() OVER (PARTITION BY t.username ORDER BY t.expirationDate DESC) AS position " +
+            "FROM `%s` t WHERE t.`_class` = $class AND t.username BETWEEN $fromUsername AND $toUsername " +
+            "AND t.expirationDate >= $now AND (t.consumed IS MISSING OR t.consumed = false)) r " +
+            "WHERE r.position > $maxPerUser";
+
+    private final CouchbaseTemplate tokenTemplate;
+
+    public TokenRepositoryCustomImpl(@Qualifier("tokenTemplate") CouchbaseTemplate tokenTemplate) {
+        this.tokenTemplate = tokenTemplate;
+    }
+
+    @Override
+    public Token insert(Token token) {
+        return tokenTemplate.insertById(Token.class).withExpiry(token.remainingLifetime()).one(token);
+    }
+
+    @Override
+    public Token replace(Token token) {
+        return tokenTemplate.replaceById(Token.class).withExpiry(token.remainingLifetime()).one(token);
+    }
+
+    @Override
+    public List<String> findExpiredIds(long now, int limit) {
+        return queryIds(FIND_EXPIRED_IDS, JsonObject.create()
+                .put("class", Token.class.getName())
+                .put("now", now)
+                .put("limit", limit));
+    }
+
+    @Override
+    public List<String> findUsernamesWithTokens(String after, long now, int limit) {
+        return queryIds(FIND_USERNAMES_WITH_TOKENS, JsonObject.create()
+                .put("class", Token.class.getName())
+                .put("after", after)
+                .put("now", now)
+                .put("limit", limit));
+    }
+
+    @Override
+    public List<String> findExcessIds(int maxPerUser, long now, String fromUsername, String toUsername) {
+        return queryIds(FIND_EXCESS_IDS, JsonObject.create()
+                .put("class", Token.class.getName())
+                .put("fromUsername", fromUsername)
+                .put("toUsername", toUsername)
+                .put("now", now)
+                .put("maxPerUser", maxPerUser));
+    }
+
+    @Override
+    public Map<String, Throwable> removeAllById(Collection<String> ids, int concurrency) {
+        ReactiveCouchbaseTemplate reactive = tokenTemplate.reactive();
+        return Flux.fromIterable(ids)
+                .flatMap(id -> reactive.removeById().one(id)
+                        .then(Mono.<Map.Entry<String, Throwable>>empty())
+                        .onErrorResume(e -> isMissing(e) ? Mono.empty() : Mono.just(Map.entry(id, e))), concurrency)
+                .collectMap(Map.Entry::getKey, Map.Entry::getValue)
+                .block();
+    }
+
+    private List<String> queryIds(String statement, JsonObject parameters) {
+        return tokenTemplate.getCouchbaseClientFactory().getCluster()
+                .query(String.format(statement, tokenTemplate.getBucketName()), queryOptions()
+                        .parameters(parameters)
+                        .scanConsistency(QueryScanConsistency.REQUEST_PLUS))
+                .rowsAs(String.class);
+    }
+
+    /**
+     * The template translates a missing document into a {@link DataRetrievalFailureException};
+     * the SDK exception is checked as well in case it comes through untranslated.
+     */
+    private static boolean isMissing(Throwable e) {
+        return e instanceof DataRetrievalFailureException || e instanceof DocumentNotFoundException
+                || e.getCause() instanceof DocumentNotFoundException;
+    }
+}
@@ -7,7 +7,11 @@ import java.util.Optional;
 
 public interface UserRepository extends CouchbaseRepository<User, String> {
 
-    Optional<User> findByUsername(String username);
+    default Optional<User> findByUsername(String username) {
+        return findById(User.idOf(username));
+    }
 
-    void deleteByUsername(String username);
+    default void deleteByUsername(String username) {
+        deleteById(User.idOf(username));
+    }
 }
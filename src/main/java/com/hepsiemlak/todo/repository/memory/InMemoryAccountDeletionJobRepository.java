@@ -0,0 +1,53 @@
+package com.hepsiemlak.todo.repository.memory;
+
+import com.hepsiemlak.todo.entity.AccountDeletionJob;
+import com.hepsiemlak.todo.repository.AccountDeletionJobRepository;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@Repository
+@Profile("memory")
+public class InMemoryAccountDeletionJobRepository extends InMemoryRepository<AccountDeletionJob>
+        implements AccountDeletionJobRepository {
+
+    @Override
+    public List<AccountDeletionJob> findByStatusIn(Collection<AccountDeletionJob.Status> statuses) {
+        return stream()
+                .filter(job -> statuses.contains(job.getStatus()))
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    protected String getId(AccountDeletionJob job) {
+        return job.getId();
+    }
+
+    @Override
+    protected void setId(AccountDeletionJob job, String id) {
+        job.setId(id);
+    }
+
+    @Override
+    protected Long getVersion(AccountDeletionJob job) {
+        return job.getVersion();
+    }
+
+    @Override
+    protected void setVersion(AccountDeletionJob job, Long version) {
+        job.setVersion(version);
+    }
+
+    @Override
+    protected boolean isVersioned() {
+        return true;
+    }
+
+    @Override
+    protected AccountDeletionJob copy(AccountDeletionJob job) {
+        return job.toBuilder().build();
+    }
+}
@@ -0,0 +1,283 @@
+package com.hepsiemlak.todo.repository.memory;
+
+import com.couchbase.client.java.query.QueryScanConsistency;
+import org.springframework.beans.support.PropertyComparator;
+import org.springframework.core.GenericTypeResolver;
+import org.springframework.dao.DataRetrievalFailureException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.couchbase.core.CouchbaseOperations;
+import org.springframework.data.couchbase.core.mapping.CouchbaseMappingContext;
+import org.springframework.data.couchbase.core.mapping.CouchbasePersistentEntity;
+import org.springframework.data.couchbase.repository.CouchbaseRepository;
+import org.springframework.data.couchbase.repository.query.CouchbaseEntityInformation;
+import org.springframework.data.couchbase.repository.support.MappingCouchbaseEntityInformation;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Keeps documents in a concurrent map keyed by id. Entities are copied on the way in and out,
+ * so callers never share state with the store, and versioned entities get the same
+ * insert/replace semantics as a CAS-checked Couchbase write.
+ */
+public abstract class InMemoryRepository<T> implements CouchbaseRepository<T, String> {
+
+    private static final AtomicLong CAS = new AtomicLong();
+
+    private static final CouchbaseMappingContext MAPPING_CONTEXT = new CouchbaseMappingContext();
+
+    protected final ConcurrentMap<String, T> documents = new ConcurrentHashMap<>();
+
+    protected abstract String getId(T entity);
+
+    protected abstract void setId(T entity, String id);
+
+    protected abstract T copy(T entity);
+
+    /**
+     * The {@code @Version} of the entity, or {@code null} for entities written without a CAS check.
+     */
+    protected Long getVersion(T entity) {
+        return null;
+    }
+
+    protected void setVersion(T entity, Long version) {
+    }
+
+    protected boolean isVersioned() {
+        return false;
+    }
+
+    /**
+     * Called inside the atomic update of a document, with {@code null} for the missing side,
+     * so secondary indexes can follow the primary map.
+     */
+    protected void onChange(T previous, T current) {
+    }
+
+    @Override
+    public <S extends T> S save(S entity) {
+        if (!isVersioned()) {
+            return write(entity, Mode.UPSERT);
+        }
+        Long version = getVersion(entity);
+        return write(entity, version == null || version == 0 ? Mode.INSERT : Mode.REPLACE);
+    }
+
+    @Override
+    public <S extends T> Iterable<S> saveAll(Iterable<S> entities) {
+        List<S> saved = new ArrayList<>();
+        entities.forEach(entity -> saved.add(save(entity)));
+        return saved;
+    }
+
+    @Override
+    public Optional<T> findById(String id) {
+        return Optional.ofNullable(documents.get(id)).map(this::copy);
+    }
+
+    @Override
+    public boolean existsById(String id) {
+        return documents.containsKey(id);
+    }
+
+    @Override
+    public List<T> findAll() {
+        return stream().collect(Collectors.toList());
+    }
+
+    @Override
+    public List<T> findAll(QueryScanConsistency scanConsistency) {
+        return findAll();
+    }
+
+    @Override
+    public List<T> findAll(Sort sort) {
+        return sorted(stream(), sort).collect(Collectors.toList());
+    }
+
+    @Override
+    public Page<T> findAll(Pageable pageable) {
+        List<T> all = findAll(pageable.getSort());
+        return page(all, pageable, all.size());
+    }
+
+    @Override
+    public List<T> findAllById(Iterable<String> ids) {
+        return StreamSupport.stream(ids.spliterator(), false)
+                .map(documents::get)
+                .filter(Objects::nonNull)
+                .map(this::copy)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public long count() {
+        return documents.size();
+    }
+
+    @Override
+    public void deleteById(String id) {
+        remove(id);
+    }
+
+    @Override
+    public void delete(T entity) {
+        remove(getId(entity));
+    }
+
+    @Override
+    public void deleteAllById(Iterable<? extends String> ids) {
+        ids.forEach(this::remove);
+    }
+
+    @Override
+    public void deleteAll(Iterable<? extends T> entities) {
+        entities.forEach(this::delete);
+    }
+
+    @Override
+    public void deleteAll() {
+        documents.keySet().forEach(this::remove);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public CouchbaseEntityInformation<T, String> getEntityInformation() {
+        Class<?> type = GenericTypeResolver.resolveTypeArgument(getClass(), InMemoryRepository.class);
+        return new MappingCouchbaseEntityInformation<>(
+                (CouchbasePersistentEntity<T>) MAPPING_CONTEXT.getRequiredPersistentEntity(type));
+    }
+
+    /**
+     * There is no cluster behind the memory profile, so there are no operations to hand out.
+     * The application only goes through the repository methods, which the load test drives
+     * end to end under this profile; anything reaching for the template fails fast here.
+     */
+    @Override
+    public CouchbaseOperations getOperations() {
+        throw new UnsupportedOperationException("In-memory repositories have no Couchbase operations");
+    }
+
+    protected <S extends T> S write(S entity, Mode mode) {
+        if (getId(entity) == null) {
+            setId(entity, UUID.randomUUID().toString());
+        }
+        String id = getId(entity);
+        Long expected = getVersion(entity);
+        long version = CAS.incrementAndGet();
+
+        documents.compute(id, (key, current) -> {
+            if (mode == Mode.INSERT && current != null) {
+                throw new DuplicateKeyException("Document with id " + id + " already exists");
+            }
+            if (mode == Mode.REPLACE) {
+                if (current == null) {
+                    throw new DataRetrievalFailureException("Document with id " + id + " not found");
+                }
+                if (isVersioned() && !Objects.equals(expected, getVersion(current))) {
+                    throw new OptimisticLockingFailureException("Document with id " + id + " was modified concurrently");
+                }
+            }
+            T stored = copy(entity);
+            if (isVersioned()) {
+                setVersion(stored, version);
+            }
+            onChange(current, stored);
+            return stored;
+        });
+
+        if (isVersioned()) {
+            setVersion(entity, version);
+        }
+        return entity;
+    }
+
+    /**
+     * Removes the document and reports whether it was there.
+     */
+    protected boolean remove(String id) {
+        boolean[] removed = new boolean[1];
+        documents.computeIfPresent(id, (key, current) -> {
+            onChange(current, null);
+            removed[0] = true;
+            return null;
+        });
+        return removed[0];
+    }
+
+    /**
+     * Removes the documents and returns a failure for each id that was not found, as a KV remove would.
+     */
+    protected Map<String, Throwable> removeAll(Collection<String> ids) {
+        Map<String, Throwable> failures = new HashMap<>();
+        for (String id : ids) {
+            if (!remove(id)) {
+                failures.put(id, new DataRetrievalFailureException("Document with id " + id + " not found"));
+            }
+        }
+        return failures;
+    }
+
+    /**
+     * Writes the documents one by one and returns the failure of each one that could not be
+     * written, as pipelined KV writes would.
+     */
+    protected Map<String, Throwable> writeAll(Collection<? extends T> entities, Mode mode) {
+        Map<String, Throwable> failures = new HashMap<>();
+        for (T entity : entities) {
+            try {
+                write(entity, mode);
+            } catch (RuntimeException e) {
+                failures.put(getId(entity), e);
+            }
+        }
+        return failures;
+    }
+
+    protected Stream<T> stream() {
+        return documents.values().stream().map(this::copy);
+    }
+
+    protected static <E> Stream<E> sorted(Stream<E> entities, Sort sort) {
+        Comparator<E> comparator = null;
+        for (Sort.Order order : sort) {
+            Comparator<E> next = new PropertyComparator<>(order.getProperty(), order.isIgnoreCase(), order.isAscending());
+            comparator = comparator == null ? next : comparator.thenComparing(next);
+        }
+        return comparator == null ? entities : entities.sorted(comparator);
+    }
+
+    protected static <E> Page<E> page(List<E> all, Pageable pageable, long total) {
+        if (pageable.isUnpaged()) {
+            return new PageImpl<>(all, pageable, total);
+        }
+        List<E> content = all.stream()
+                .skip(pageable.getOffset())
+                .limit(pageable.getPageSize())
+                .collect(Collectors.toList());
+        return new PageImpl<>(content, pageable, total);
+    }
+
+    protected enum Mode {
+        INSERT, REPLACE, UPSERT
+    }
+}
@@ -0,0 +1,77 @@
+package com.hepsiemlak.todo.repository.memory;
+
+import com.hepsiemlak.todo.model.todo.TodoStatsResponse;
+import com.hepsiemlak.todo.repository.TodoCounterRepository;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Counters by username as {total, completed} pairs that are replaced, never modified, so a
+ * reader always sees both counts of the same update. They never expire, as nothing else writes
+ * the in-memory todos.
+ */
+@Repository
+@Profile("memory")
+public class InMemoryTodoCounterRepository implements TodoCounterRepository {
+
+    private final ConcurrentMap<String, long[]> counters = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Long> versions = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Long> writing = new ConcurrentHashMap<>();
+
+    @Override
+    public Optional<TodoStatsResponse> findByUsername(String username) {
+        long[] counts = counters.get(username);
+        if (counts == null) {
+            return Optional.empty();
+        }
+        return Optional.of(TodoStatsResponse.builder()
+                .total(counts[0])
+                .completed(counts[1])
+                .open(Math.max(counts[0] - counts[1], 0))
+                .build());
+    }
+
+    @Override
+    public boolean seed(String username, long total, long completed) {
+        return counters.putIfAbsent(username, new long[]{total, completed}) == null;
+    }
+
+    @Override
+    public Optional<Long> findVersionByUsername(String username) {
+        return Optional.ofNullable(versions.get(username));
+    }
+
+    @Override
+    public void seedVersion(String username, long version) {
+        versions.put(username, version);
+    }
+
+    @Override
+    public void startWrite(String username) {
+        writing.merge(username, 1L, Long::sum);
+        versions.computeIfPresent(username, (key, version) -> version + 1);
+    }
+
+    @Override
+    public boolean hasWritesInFlight(String username) {
+        return writing.containsKey(username);
+    }
+
+    @Override
+    public void increment(String username, long total, long completed) {
+        counters.computeIfPresent(username, (key, counts) ->
+                new long[]{Math.max(counts[0] + total, 0), Math.max(counts[1] + completed, 0)});
+        versions.computeIfPresent(username, (key, version) -> version + 1);
+        writing.computeIfPresent(username, (key, writes) -> writes > 1 ? writes - 1 : null);
+    }
+
+    @Override
+    public void deleteByUsername(String username) {
+        counters.remove(username);
+        versions.remove(username);
+    }
+}
@@ -0,0 +1,275 @@
+package com.hepsiemlak.todo.repository.memory;
+
+import com.hepsiemlak.todo.entity.Todo;
+import com.hepsiemlak.todo.model.todo.ProjectedTodoResponse;
+import com.hepsiemlak.todo.model.todo.TodoFilter;
+import com.hepsiemlak.todo.model.todo.TodoResponse;
+import com.hepsiemlak.todo.repository.TodoRepository;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Todos by id, plus a per-user index ordered by (createdDate, id) that serves paging, cursor
+ * slices and chunked deletes without scanning other users' todos.
+ */
+@Repository
+@Profile("memory")
+public class InMemoryTodoRepository extends InMemoryRepository<Todo> implements TodoRepository {
+
+    private static final Map<String, Comparator<Todo>> SORT_KEYS = Map.of(
+            "createdDate", Comparator.comparingLong(IndexKey::createdDate),
+            "title", Comparator.comparing(Todo::getTitle, Comparator.nullsFirst(Comparator.naturalOrder())),
+            "completed", Comparator.comparing(Todo::isCompleted));
+
+    private final ConcurrentMap<String, NavigableSet<IndexKey>> byUsername = new ConcurrentHashMap<>();
+
+    @Override
+    public List<Todo> findByUsername(String username, Pageable pageable) {
+        List<Todo> todos = streamByUsername(username).collect(Collectors.toList());
+        if (pageable.getSort().isSorted()) {
+            todos = sorted(todos.stream(), pageable.getSort()).collect(Collectors.toList());
+        }
+        return page(todos, pageable, todos.size()).getContent();
+    }
+
+    @Override
+    public long countByUsername(String username) {
+        return index(username).size();
+    }
+
+    @Override
+    public long countByUsernameAndCompleted(String username, boolean completed) {
+        return streamByUsername(username).filter(todo -> todo.isCompleted() == completed).count();
+    }
+
+    @Override
+    public List<Todo> findFirstSliceByUsername(String username, int limit) {
+        return streamOf(index(username)).limit(limit).collect(Collectors.toList());
+    }
+
+    @Override
+    public List<Todo> findSliceByUsernameAfter(String username, long createdDate, String id, int limit) {
+        return streamOf(index(username).tailSet(new IndexKey(createdDate, id), false))
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public long deleteChunkByUsername(String username, long createdBefore, int limit) {
+        long deleted = 0;
+        for (IndexKey key : index(username)) {
+            if (deleted >= limit || key.createdDate > createdBefore) {
+                break;
+            }
+            if (remove(key.id)) {
+                deleted++;
+            }
+        }
+        return deleted;
+    }
+
+    @Override
+    public List<TodoResponse> findProjectedByUsername(String username, TodoFilter filter, Pageable pageable) {
+        return streamByUsername(username)
+                .filter(matcher(filter))
+                .sorted(comparator(pageable.getSort()))
+                .skip(pageable.getOffset())
+                .limit(pageable.getPageSize())
+                .map(projection(filter.getFields()))
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public long countProjectedByUsername(String username, TodoFilter filter) {
+        return streamByUsername(username).filter(matcher(filter)).count();
+    }
+
+    @Override
+    public Map<String, Throwable> insertAll(Collection<Todo> todos) {
+        return writeAll(todos, Mode.INSERT);
+    }
+
+    @Override
+    public Map<String, Throwable> replaceAll(Collection<Todo> todos) {
+        return writeAll(todos, Mode.REPLACE);
+    }
+
+    @Override
+    public Map<String, Throwable> removeAllById(Collection<String> ids) {
+        return removeAll(ids);
+    }
+
+    @Override
+    protected String getId(Todo todo) {
+        return todo.getId();
+    }
+
+    @Override
+    protected void setId(Todo todo, String id) {
+        todo.setId(id);
+    }
+
+    @Override
+    protected Todo copy(Todo todo) {
+        return todo.toBuilder().build();
+    }
+
+    @Override
+    protected Long getVersion(Todo todo) {
+        return todo.getVersion();
+    }
+
+    @Override
+    protected void setVersion(Todo todo, Long version) {
+        todo.setVersion(version);
+    }
+
+    @Override
+    protected boolean isVersioned() {
+        return true;
+    }
+
+    @Override
+    protected void onChange(Todo previous, Todo current) {
+        if (previous != null && current != null
+                && Objects.equals(previous.getUsername(), current.getUsername())
+                && Objects.equals(previous.getCreatedDate(), current.getCreatedDate())) {
+            return;
+        }
+        if (current != null && current.getUsername() != null) {
+            byUsername.compute(current.getUsername(), (username, keys) -> {
+                NavigableSet<IndexKey> index = keys != null ? keys : new ConcurrentSkipListSet<>();
+                index.add(IndexKey.of(current));
+                return index;
+            });
+        }
+        if (previous != null && previous.getUsername() != null) {
+            byUsername.computeIfPresent(previous.getUsername(), (username, keys) -> {
+                keys.remove(IndexKey.of(previous));
+                return keys.isEmpty() ? null : keys;
+            });
+        }
+    }
+
+    private NavigableSet<IndexKey> index(String username) {
+        return byUsername.getOrDefault(username, Collections.emptyNavigableSet());
+    }
+
+    private Stream<Todo> streamByUsername(String username) {
+        return streamOf(index(username));
+    }
+
+    private Stream<Todo> streamOf(Collection<IndexKey> keys) {
+        return keys.stream()
+                .map(key -> documents.get(key.id))
+                .filter(Objects::nonNull)
+                .map(this::copy);
+    }
+
+    private static Predicate<Todo> matcher(TodoFilter filter) {
+        Predicate<Todo> matcher = todo -> true;
+        if (filter.getCompleted() != null) {
+            matcher = matcher.and(todo -> todo.isCompleted() == filter.getCompleted());
+        }
+        if (filter.getTitlePrefix() != null && !filter.getTitlePrefix().isEmpty()) {
+            matcher = matcher.and(todo -> todo.getTitle() != null && todo.getTitle().startsWith(filter.getTitlePrefix()));
+        }
+        if (filter.getTitleContains() != null && !filter.getTitleContains().isEmpty()) {
+            String needle = filter.getTitleContains().toLowerCase();
+            matcher = matcher.and(todo -> todo.getTitle() != null && todo.getTitle().toLowerCase().contains(needle));
+        }
+        return matcher;
+    }
+
+    private static Comparator<Todo> comparator(Sort sort) {
+        Comparator<Todo> comparator = (left, right) -> 0;
+        for (Sort.Order order : sort) {
+            Comparator<Todo> key = SORT_KEYS.get(order.getProperty());
+            if (key == null) {
+                throw new IllegalArgumentException("Unknown todo field " + order.getProperty());
+            }
+            comparator = comparator.thenComparing(order.isAscending() ? key : key.reversed());
+        }
+        return comparator.thenComparing(Todo::getId);
+    }
+
+    private static Function<Todo, TodoResponse> projection(List<String> fields) {
+        if (fields == null || fields.isEmpty()) {
+            return todo -> TodoResponse.builder()
+                    .id(todo.getId())
+                    .title(todo.getTitle())
+                    .description(todo.getDescription())
+                    .completed(todo.isCompleted())
+                    .build();
+        }
+        for (String field : fields) {
+            if (!TodoFilter.FIELDS.contains(field)) {
+                throw new IllegalArgumentException("Unknown todo field " + field);
+            }
+        }
+        return todo -> {
+            TodoResponse response = new ProjectedTodoResponse();
+            response.setId(fields.contains("id") ? todo.getId() : null);
+            response.setTitle(fields.contains("title") ? todo.getTitle() : null);
+            response.setDescription(fields.contains("description") ? todo.getDescription() : null);
+            response.setCompleted(fields.contains("completed") ? todo.isCompleted() : null);
+            return response;
+        };
+    }
+
+    /**
+     * Todos without a creation date sort as created at 0, as {@code IFMISSINGORNULL(createdDate, 0)}
+     * does in the Couchbase queries and cursors.
+     */
+    private static final class IndexKey implements Comparable<IndexKey> {
+
+        private final long createdDate;
+        private final String id;
+
+        private IndexKey(long createdDate, String id) {
+            this.createdDate = createdDate;
+            this.id = id;
+        }
+
+        static IndexKey of(Todo todo) {
+            return new IndexKey(createdDate(todo), todo.getId());
+        }
+
+        static long createdDate(Todo todo) {
+            return todo.getCreatedDate() != null ? todo.getCreatedDate() : 0L;
+        }
+
+        @Override
+        public int compareTo(IndexKey other) {
+            int byCreatedDate = Long.compare(createdDate, other.createdDate);
+            return byCreatedDate != 0 ? byCreatedDate : id.compareTo(other.id);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof IndexKey && compareTo((IndexKey) other) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(createdDate, id);
+        }
+    }
+}
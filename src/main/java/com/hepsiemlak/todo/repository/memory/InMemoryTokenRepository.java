@@ -0,0 +1,105 @@
+package com.hepsiemlak.todo.repository.memory;
+
+import com.hepsiemlak.todo.entity.Token;
+import com.hepsiemlak.todo.repository.TokenRepository;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Document expiry is not emulated: expired tokens stay until the reaper finds them through
+ * {@link #findExpiredIds(long, int)}.
+ */
+@Repository
+@Profile("memory")
+public class InMemoryTokenRepository extends InMemoryRepository<Token> implements TokenRepository {
+
+    @Override
+    public Token insert(Token token) {
+        return write(token, Mode.INSERT);
+    }
+
+    @Override
+    public Token replace(Token token) {
+        return write(token, Mode.REPLACE);
+    }
+
+    @Override
+    public List<String> findExpiredIds(long now, int limit) {
+        return documents.values().stream()
+                .filter(token -> token.getExpirationDate() != null && token.getExpirationDate() < now)
+                .map(Token::getId)
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public List<String> findUsernamesWithTokens(String after, long now, int limit) {
+        return documents.values().stream()
+                .filter(token -> token.getUsername() != null && token.getUsername().compareTo(after) > 0)
+                .filter(token -> token.getExpirationDate() != null && token.getExpirationDate() >= now)
+                .map(Token::getUsername)
+                .distinct()
+                .sorted()
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public List<String> findExcessIds(int maxPerUser, long now, String fromUsername, String toUsername) {
+        return documents.values().stream()
+                .filter(token -> token.getUsername() != null)
+                .filter(token -> token.getUsername().compareTo(fromUsername) >= 0 && token.getUsername().compareTo(toUsername) <= 0)
+                .filter(token -> token.getExpirationDate() != null && token.getExpirationDate() >= now)
+                .filter(token -> !Boolean.TRUE.equals(token.getConsumed()))
+                .collect(Collectors.groupingBy(Token::getUsername))
+                .values().stream()
+                .flatMap(tokens -> tokens.stream()
+                        .sorted(Comparator.comparing(Token::getExpirationDate).reversed())
+                        .skip(maxPerUser))
+                .map(Token::getId)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public Map<String, Throwable> removeAllById(Collection<String> ids, int concurrency) {
+        ids.forEach(this::remove);
+        return Collections.emptyMap();
+    }
+
+    @Override
+    protected String getId(Token token) {
+        return token.getId();
+    }
+
+    @Override
+    protected void setId(Token token, String id) {
+        token.setId(id);
+    }
+
+    @Override
+    protected Token copy(Token token) {
+        return token.toBuilder().build();
+    }
+
+    @Override
+    protected Long getVersion(Token token) {
+        return token.getVersion();
+    }
+
+    @Override
+    protected void setVersion(Token token, Long version) {
+        token.setVersion(version);
+    }
+
+    @Override
+    protected boolean isVersioned() {
+        return true;
+    }
+}
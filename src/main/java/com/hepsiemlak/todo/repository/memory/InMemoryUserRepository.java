@@ -0,0 +1,41 @@
+package com.hepsiemlak.todo.repository.memory;
+
+import com.hepsiemlak.todo.entity.User;
+import com.hepsiemlak.todo.repository.UserRepository;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+@Repository
+@Profile("memory")
+public class InMemoryUserRepository extends InMemoryRepository<User> implements UserRepository {
+
+    @Override
+    protected String getId(User user) {
+        return user.getId();
+    }
+
+    @Override
+    protected void setId(User user, String id) {
+        user.setId(id);
+    }
+
+    @Override
+    protected User copy(User user) {
+        return user.toBuilder().build();
+    }
+
+    @Override
+    protected Long getVersion(User user) {
+        return user.getVersion();
+    }
+
+    @Override
+    protected void setVersion(User user, Long version) {
+        user.setVersion(version);
+    }
+
+    @Override
+    protected boolean isVersioned() {
+        return true;
+    }
+}
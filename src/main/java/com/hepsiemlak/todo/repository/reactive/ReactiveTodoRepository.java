@@ -0,0 +1,23 @@
+package com.hepsiemlak.todo.repository.reactive;
+
+import com.couchbase.client.java.query.QueryScanConsistency;
+import com.hepsiemlak.todo.entity.Todo;
+import com.hepsiemlak.todo.repository.TodoRepository;
+import org.springframework.data.couchbase.repository.Query;
+import org.springframework.data.couchbase.repository.ReactiveCouchbaseRepository;
+import org.springframework.data.couchbase.repository.ScanConsistency;
+import org.springframework.data.domain.Pageable;
+import reactor.core.publisher.Flux;
+
+public interface ReactiveTodoRepository extends ReactiveCouchbaseRepository<Todo, String> {
+
+    @Query(TodoRepository.FIND_BY_USERNAME)
+    @ScanConsistency(query = QueryScanConsistency.REQUEST_PLUS)
+    Flux<Todo> findByUsername(String username, Pageable pageable);
+
+    @Query(TodoRepository.FIND_FIRST_SLICE_BY_USERNAME)
+    Flux<Todo> findFirstSliceByUsername(String username, int limit);
+
+    @Query(TodoRepository.FIND_SLICE_BY_USERNAME_AFTER)
+    Flux<Todo> findSliceByUsernameAfter(String username, long createdDate, String id, int limit);
+}
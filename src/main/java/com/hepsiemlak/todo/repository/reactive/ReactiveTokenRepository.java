@@ -0,0 +1,12 @@
+package com.hepsiemlak.todo.repository.reactive;
+
+import com.hepsiemlak.todo.entity.Token;
+import org.springframework.data.couchbase.repository.ReactiveCouchbaseRepository;
+import reactor.core.publisher.Mono;
+
+public interface ReactiveTokenRepository extends ReactiveCouchbaseRepository<Token, String>, ReactiveTokenRepositoryCustom {
+
+    default Mono<Token> findByRefreshToken(String refreshToken) {
+        return findById(Token.idOf(refreshToken));
+    }
+}
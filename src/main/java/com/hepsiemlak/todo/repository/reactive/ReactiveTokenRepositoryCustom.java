@@ -0,0 +1,11 @@
+package com.hepsiemlak.todo.repository.reactive;
+
+import com.hepsiemlak.todo.entity.Token;
+import reactor.core.publisher.Mono;
+
+public interface ReactiveTokenRepositoryCustom {
+
+    Mono<Token> insert(Token token);
+
+    Mono<Token> replace(Token token);
+}
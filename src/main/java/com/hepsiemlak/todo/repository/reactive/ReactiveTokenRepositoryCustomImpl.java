@@ -0,0 +1,29 @@
+package com.hepsiemlak.todo.repository.reactive;
+
+import com.hepsiemlak.todo.entity.Token;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.couchbase.core.CouchbaseTemplate;
+import reactor.core.publisher.Mono;
+
+public class ReactiveTokenRepositoryCustomImpl implements ReactiveTokenRepositoryCustom {
+
+    private final CouchbaseTemplate tokenTemplate;
+
+    public ReactiveTokenRepositoryCustomImpl(@Qualifier("tokenTemplate") CouchbaseTemplate tokenTemplate) {
+        this.tokenTemplate = tokenTemplate;
+    }
+
+    @Override
+    public Mono<Token> insert(Token token) {
+        return Mono.defer(() -> tokenTemplate.reactive().insertById(Token.class)
+                .withExpiry(token.remainingLifetime())
+                .one(token));
+    }
+
+    @Override
+    public Mono<Token> replace(Token token) {
+        return Mono.defer(() -> tokenTemplate.reactive().replaceById(Token.class)
+                .withExpiry(token.remainingLifetime())
+                .one(token));
+    }
+}
@@ -0,0 +1,16 @@
+package com.hepsiemlak.todo.repository.reactive;
+
+import com.hepsiemlak.todo.entity.User;
+import org.springframework.data.couchbase.repository.ReactiveCouchbaseRepository;
+import reactor.core.publisher.Mono;
+
+public interface ReactiveUserRepository extends ReactiveCouchbaseRepository<User, String> {
+
+    default Mono<User> findByUsername(String username) {
+        return findById(User.idOf(username));
+    }
+
+    default Mono<Void> deleteByUsername(String username) {
+        return deleteById(User.idOf(username));
+    }
+}
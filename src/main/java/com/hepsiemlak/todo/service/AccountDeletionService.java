@@ -0,0 +1,202 @@
+package com.hepsiemlak.todo.service;
+
+import com.hepsiemlak.todo.entity.AccountDeletionJob;
+import com.hepsiemlak.todo.exception.NotFoundException;
+import com.hepsiemlak.todo.mapping.UserMapper;
+import com.hepsiemlak.todo.model.user.AccountDeletionJobResponse;
+import com.hepsiemlak.todo.repository.AccountDeletionJobRepository;
+import com.hepsiemlak.todo.repository.TodoRepository;
+import com.hepsiemlak.todo.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.EnumSet;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Deletes accounts in the background. The user document goes away immediately, so the account
+ * stops authenticating. The todos are then removed in chunks by a persisted job, and every
+ * chunk is idempotent, so a job can always be run again.
+ * <p>
+ * A node runs a job only after claiming it with a CAS write, and holds it for
+ * {@code account-deletion.lease}, renewed with every chunk. Every node sweeps for jobs nobody
+ * holds: pending ones, running ones whose lease ran out because their node stopped, and failed
+ * ones, which are retried with a backoff doubling up to {@code account-deletion.max-retry-backoff}.
+ */
+@Service
+public class AccountDeletionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AccountDeletionService.class);
+
+    private final AccountDeletionJobRepository jobRepository;
+    private final UserRepository userRepository;
+    private final TodoRepository todoRepository;
+    private final TodoCache todoCache;
+    private final TodoCounters todoCounters;
+    private final UserDetailsCustomService userDetailsCustomService;
+    private final UserMapper userMapper;
+    private final int chunkSize;
+    private final Duration lease;
+    private final Duration retryBackoff;
+    private final Duration maxRetryBackoff;
+    private final ExecutorService executor;
+
+    public AccountDeletionService(AccountDeletionJobRepository jobRepository,
+                                  UserRepository userRepository,
+                                  TodoRepository todoRepository,
+                                  TodoCache todoCache,
+                                  TodoCounters todoCounters,
+                                  UserDetailsCustomService userDetailsCustomService,
+                                  UserMapper userMapper,
+                                  @Value("${account-deletion.threads:2}") int threads,
+                                  @Value("${account-deletion.chunk-size:1000}") int chunkSize,
+                                  @Value("${account-deletion.lease:5m}") Duration lease,
+                                  @Value("${account-deletion.retry-backoff:30s}") Duration retryBackoff,
+                                  @Value("${account-deletion.max-retry-backoff:1h}") Duration maxRetryBackoff) {
+        this.jobRepository = jobRepository;
+        this.userRepository = userRepository;
+        this.todoRepository = todoRepository;
+        this.todoCache = todoCache;
+        this.todoCounters = todoCounters;
+        this.userDetailsCustomService = userDetailsCustomService;
+        this.userMapper = userMapper;
+        this.chunkSize = chunkSize;
+        this.lease = lease;
+        this.retryBackoff = retryBackoff;
+        this.maxRetryBackoff = maxRetryBackoff;
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, "account-deletion-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    public String submit(String username) {
+        long now = System.currentTimeMillis();
+        String jobId = UUID.randomUUID().toString();
+        AccountDeletionJob job = jobRepository.save(AccountDeletionJob.builder()
+                .id(AccountDeletionJob.idOf(jobId))
+                .username(username)
+                .status(AccountDeletionJob.Status.PENDING)
+                .deletedTodos(0L)
+                .attempts(0)
+                .createdDate(now)
+                .lastModifiedDate(now)
+                .build());
+
+        userRepository.deleteByUsername(username);
+        userDetailsCustomService.evictUser(username);
+
+        executor.execute(() -> run(job));
+        return jobId;
+    }
+
+    public AccountDeletionJobResponse getJob(String jobId) {
+        return jobRepository.findById(AccountDeletionJob.idOf(jobId))
+                .map(userMapper::toResponse)
+                .orElseThrow(() -> new NotFoundException("Job not found"));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${account-deletion.sweep-interval:PT1M}",
+            fixedDelayString = "${account-deletion.sweep-interval:PT1M}")
+    public void resumeJobs() {
+        long now = System.currentTimeMillis();
+        jobRepository.findByStatusIn(EnumSet.of(AccountDeletionJob.Status.PENDING,
+                        AccountDeletionJob.Status.RUNNING, AccountDeletionJob.Status.FAILED))
+                .stream()
+                .filter(job -> isDue(job, now))
+                .forEach(job -> {
+                    logger.info("Resuming account deletion job {}", job.getId());
+                    executor.execute(() -> run(job));
+                });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Only todos created before the job are removed, so an account registered again under the
+     * same username keeps its new todos. A CAS failure on any write means another node has
+     * claimed the job, which is then left to it.
+     */
+    void run(AccountDeletionJob job) {
+        try {
+            job = update(job, AccountDeletionJob.Status.RUNNING, null);
+        } catch (OptimisticLockingFailureException e) {
+            logger.debug("Account deletion job {} is claimed by another node", job.getId());
+            return;
+        }
+
+        try {
+            long deleted;
+            do {
+                deleted = todoRepository.deleteChunkByUsername(job.getUsername(), job.getCreatedDate(), chunkSize);
+                job.setDeletedTodos(job.getDeletedTodos() + deleted);
+                job = update(job, AccountDeletionJob.Status.RUNNING, null);
+            } while (deleted > 0 && !Thread.currentThread().isInterrupted());
+
+            if (!Thread.currentThread().isInterrupted()) {
+                todoCache.evictUser(job.getUsername());
+                todoCounters.delete(job.getUsername());
+                update(job, AccountDeletionJob.Status.COMPLETED, null);
+            }
+        } catch (OptimisticLockingFailureException e) {
+            logger.warn("Account deletion job {} was taken over by another node", job.getId());
+        } catch (RuntimeException e) {
+            int attempts = (job.getAttempts() != null ? job.getAttempts() : 0) + 1;
+            logger.error("Account deletion job {} failed on attempt {}", job.getId(), attempts, e);
+            job.setAttempts(attempts);
+            job.setNextAttemptDate(System.currentTimeMillis() + backoff(attempts).toMillis());
+            try {
+                update(job, AccountDeletionJob.Status.FAILED, e.getMessage());
+            } catch (RuntimeException updateFailure) {
+                // The lease runs out instead and the job is taken over then.
+                logger.error("Could not record the failure of account deletion job {}", job.getId(), updateFailure);
+            }
+        }
+    }
+
+    private boolean isDue(AccountDeletionJob job, long now) {
+        switch (job.getStatus()) {
+            case RUNNING:
+                return job.getLeaseExpirationDate() == null || job.getLeaseExpirationDate() <= now;
+            case FAILED:
+                return job.getNextAttemptDate() == null || job.getNextAttemptDate() <= now;
+            default:
+                return true;
+        }
+    }
+
+    private Duration backoff(int attempts) {
+        Duration backoff = retryBackoff.multipliedBy(1L << Math.min(attempts - 1, 20));
+        return backoff.compareTo(maxRetryBackoff) > 0 ? maxRetryBackoff : backoff;
+    }
+
+    private AccountDeletionJob update(AccountDeletionJob job, AccountDeletionJob.Status status, String message) {
+        long now = System.currentTimeMillis();
+        job.setStatus(status);
+        job.setMessage(message);
+        job.setLastModifiedDate(now);
+        job.setLeaseExpirationDate(status == AccountDeletionJob.Status.RUNNING ? now + lease.toMillis() : null);
+        return jobRepository.save(job);
+    }
+}
@@ -0,0 +1,19 @@
+package com.hepsiemlak.todo.service;
+
+/**
+ * The bus of a single node: there is nobody to tell.
+ */
+public class LocalTodoInvalidationBus implements TodoInvalidationBus {
+
+    @Override
+    public void publish(String todoId) {
+    }
+
+    @Override
+    public void publishUser(String username) {
+    }
+
+    @Override
+    public void subscribe(Listener listener) {
+    }
+}
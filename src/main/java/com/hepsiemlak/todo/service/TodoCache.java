@@ -0,0 +1,77 @@
+package com.hepsiemlak.todo.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.hepsiemlak.todo.entity.Todo;
+import com.hepsiemlak.todo.repository.TodoRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.Optional;
+
+/**
+ * Read-through cache of todos by id. Entries are copies, so callers can modify what they get,
+ * and a write only replaces an entry holding an older version. Ownership is not checked here;
+ * callers check {@link Todo#getUsername()} on every hit as they would on a database read.
+ */
+@Component
+@RequiredArgsConstructor
+public class TodoCache implements TodoInvalidationBus.Listener {
+
+    private final Cache<String, Todo> todoEntityCache;
+    private final TodoRepository todoRepository;
+    private final TodoInvalidationBus todoInvalidationBus;
+
+    @PostConstruct
+    public void init() {
+        todoInvalidationBus.subscribe(this);
+    }
+
+    public Optional<Todo> findById(String id) {
+        return Optional.ofNullable(todoEntityCache.get(id, key -> todoRepository.findById(key).orElse(null)))
+                .map(TodoCache::copy);
+    }
+
+    /**
+     * Caches the todo as just written and invalidates it on the other nodes.
+     */
+    public void put(Todo todo) {
+        todoEntityCache.asMap().merge(todo.getId(), copy(todo), TodoCache::newer);
+        todoInvalidationBus.publish(todo.getId());
+    }
+
+    public void evict(String id) {
+        todoEntityCache.invalidate(id);
+        todoInvalidationBus.publish(id);
+    }
+
+    /**
+     * Drops every cached todo of the user, scanning the whole cache. Meant for rare events such as
+     * an account deletion.
+     */
+    public void evictUser(String username) {
+        onUserInvalidated(username);
+        todoInvalidationBus.publishUser(username);
+    }
+
+    @Override
+    public void onTodoInvalidated(String todoId) {
+        todoEntityCache.invalidate(todoId);
+    }
+
+    @Override
+    public void onUserInvalidated(String username) {
+        todoEntityCache.asMap().values().removeIf(todo -> username.equals(todo.getUsername()));
+    }
+
+    private static Todo newer(Todo cached, Todo written) {
+        if (cached.getVersion() != null && written.getVersion() != null && cached.getVersion() > written.getVersion()) {
+            return cached;
+        }
+        return written;
+    }
+
+    private static Todo copy(Todo todo) {
+        return todo.toBuilder().build();
+    }
+}
@@ -0,0 +1,123 @@
+package com.hepsiemlak.todo.service;
+
+import com.hepsiemlak.todo.model.todo.TodoStatsResponse;
+import com.hepsiemlak.todo.repository.TodoCounterRepository;
+import com.hepsiemlak.todo.repository.TodoRepository;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+
+/**
+ * Reads the per-user counts from counter documents and keeps them in step with every write,
+ * so that listing and stats never run a COUNT query. Counters missing on read are seeded from
+ * a count once; a counter update that fails drops the counters so that they are counted again.
+ * The version moves on with every write and backs the ETag of the todo listing.
+ * <p>
+ * Every write is bracketed: {@link #start} before the todo is written, moving the version on and
+ * marking the write in flight, then {@link #add} or {@link #finish} after it, applying the counts
+ * and moving the version on again. An increment of a missing counter is dropped, so a write that
+ * lands while the counters are being seeded may or may not be in the seeded counts. The seed
+ * therefore drops the counters it wrote when a write is still in flight or the version moved
+ * since it started counting; the next read counts again. That covers every write whose save the
+ * count may have seen, including one started before the seed but recorded after it. A seed never
+ * replaces counters another one created, which may already carry increments.
+ */
+@Component
+@RequiredArgsConstructor
+public class TodoCounters {
+
+    private static final Logger logger = LoggerFactory.getLogger(TodoCounters.class);
+
+    private final TodoCounterRepository todoCounterRepository;
+    private final TodoRepository todoRepository;
+
+    public TodoStatsResponse get(String username) {
+        return todoCounterRepository.findByUsername(username).orElseGet(() -> seed(username));
+    }
+
+    /**
+     * A seeded version starts from the clock rather than from zero, so that a version dropped or
+     * expired is never handed out again for a different state of the todos.
+     */
+    public long version(String username) {
+        return todoCounterRepository.findVersionByUsername(username).orElseGet(() -> {
+            long version = System.currentTimeMillis();
+            todoCounterRepository.seedVersion(username, version);
+            return version;
+        });
+    }
+
+    /**
+     * The version to tag a listing with, or empty while a write is in flight: such a write may
+     * already show in the listing, yet the version moves on once more when it is recorded.
+     */
+    public Optional<Long> settledVersion(String username) {
+        if (todoCounterRepository.hasWritesInFlight(username)) {
+            return Optional.empty();
+        }
+        return Optional.of(version(username));
+    }
+
+    /**
+     * Called before a write of the user's todos, which must then be ended with {@link #add} or
+     * {@link #finish} whether it succeeds or not.
+     */
+    public void start(String username) {
+        try {
+            todoCounterRepository.startWrite(username);
+        } catch (RuntimeException e) {
+            logger.warn("Could not mark a write of the todos of {}, they will be counted again", username, e);
+            delete(username);
+        }
+    }
+
+    /**
+     * Ends a write of the user's todos with its effect on the counts, which may be none.
+     */
+    public void add(String username, long total, long completed) {
+        try {
+            todoCounterRepository.increment(username, total, completed);
+        } catch (RuntimeException e) {
+            logger.warn("Could not update the todo counters of {}, they will be counted again", username, e);
+            delete(username);
+        }
+    }
+
+    /**
+     * Ends a write of the user's todos that failed and so changed no counts.
+     */
+    public void finish(String username) {
+        add(username, 0, 0);
+    }
+
+    public void delete(String username) {
+        try {
+            todoCounterRepository.deleteByUsername(username);
+        } catch (RuntimeException e) {
+            logger.error("Could not delete the todo counters of {}", username, e);
+        }
+    }
+
+    private TodoStatsResponse seed(String username) {
+        long version = version(username);
+        long total = todoRepository.countByUsername(username);
+        long completed = todoRepository.countByUsernameAndCompleted(username, true);
+
+        // The mark is read before the version, as a write is no longer in flight only once it has
+        // moved the version on.
+        if (todoCounterRepository.seed(username, total, completed)
+                && (todoCounterRepository.hasWritesInFlight(username) || version(username) != version)) {
+            logger.debug("The todos of {} changed while their counters were seeded, they will be counted again", username);
+            delete(username);
+        }
+
+        return TodoStatsResponse.builder()
+                .total(total)
+                .completed(completed)
+                .open(total - completed)
+                .build();
+    }
+}
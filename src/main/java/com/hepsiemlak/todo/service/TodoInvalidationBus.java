@@ -0,0 +1,32 @@
+package com.hepsiemlak.todo.service;
+
+/**
+ * Carries todo cache invalidations between application nodes. Register a bean of this type
+ * (backed by a message broker, a DCP feed or similar) to keep the caches of several nodes
+ * coherent; without one, other nodes see a change once their entry expires.
+ */
+public interface TodoInvalidationBus {
+
+    /**
+     * Tells the other nodes to drop the todo.
+     */
+    void publish(String todoId);
+
+    /**
+     * Tells the other nodes to drop every todo of the user.
+     */
+    void publishUser(String username);
+
+    /**
+     * Registers the listener for invalidations published by other nodes. Implementations must
+     * not deliver a node's own invalidations back to it.
+     */
+    void subscribe(Listener listener);
+
+    interface Listener {
+
+        void onTodoInvalidated(String todoId);
+
+        void onUserInvalidated(String username);
+    }
+}
@@ -0,0 +1,150 @@
+package com.hepsiemlak.todo.service;
+
+import com.hepsiemlak.todo.entity.Todo;
+import com.hepsiemlak.todo.exception.BadRequestException;
+import com.hepsiemlak.todo.exception.NotFoundException;
+import com.hepsiemlak.todo.exception.PreconditionFailedException;
+import com.hepsiemlak.todo.model.SliceResponse;
+import com.hepsiemlak.todo.model.todo.TodoFilter;
+import com.hepsiemlak.todo.model.todo.UpdateTodoRequest;
+import org.springframework.data.domain.Sort;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Rules of the todo API that do not depend on how the data is fetched, shared by the blocking
+ * {@link TodoService} and its reactive counterpart.
+ */
+public final class TodoRules {
+
+    public static final String TASK_NOT_FOUND = "Task not found";
+
+    public static final String TASK_MODIFIED = "Task was modified concurrently";
+
+    public static final String TASK_VERSION_MISMATCH = "Task does not match the If-Match version";
+
+    public static final String ANY_VERSION = "*";
+
+    private TodoRules() {
+    }
+
+    public static Todo created(Todo todo) {
+        todo.setCreatedDate(System.currentTimeMillis());
+        return todo;
+    }
+
+    /**
+     * Todos of other users are reported as missing so their ids cannot be probed.
+     */
+    public static Todo requireOwner(Todo todo, String username) {
+        if (todo == null || !todo.getUsername().equals(username)) {
+            throw new NotFoundException(TASK_NOT_FOUND);
+        }
+        return todo;
+    }
+
+    /**
+     * Compares the version with an If-Match header strongly, as RFC 9110 requires: a weak tag
+     * never matches, while a list matches when any of its tags does.
+     */
+    public static boolean matchesIfMatch(String ifMatch, Long version) {
+        if (ANY_VERSION.equals(ifMatch.trim())) {
+            return true;
+        }
+        if (version == null) {
+            return false;
+        }
+        String expected = "\"" + version + "\"";
+        for (String tag : ifMatch.split(",")) {
+            if (tag.trim().equals(expected)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public static void requireIfMatch(String ifMatch, Long version) {
+        if (!matchesIfMatch(ifMatch, version)) {
+            throw new PreconditionFailedException(TASK_VERSION_MISMATCH);
+        }
+    }
+
+    /**
+     * An update that only sets the completed flag leaves the same result whichever version it is
+     * applied to, so it can be applied again after losing a race. Edits of the text are not, as
+     * they would overwrite a text the client never saw.
+     */
+    public static boolean isRetryable(UpdateTodoRequest request) {
+        return request.getTitle() == null && request.getDescription() == null && request.getCompleted() != null;
+    }
+
+    public static boolean isUnfiltered(TodoFilter filter) {
+        return filter.getCompleted() == null
+                && !filtersTitle(filter)
+                && filter.getSort() == null
+                && (filter.getFields() == null || filter.getFields().isEmpty());
+    }
+
+    public static boolean filtersTitle(TodoFilter filter) {
+        return (filter.getTitlePrefix() != null && !filter.getTitlePrefix().isEmpty())
+                || (filter.getTitleContains() != null && !filter.getTitleContains().isEmpty());
+    }
+
+    public static Sort toSort(TodoFilter filter) {
+        if (filter.getFields() != null && !TodoFilter.FIELDS.containsAll(filter.getFields())) {
+            throw new BadRequestException("Fields must be one of " + TodoFilter.FIELDS);
+        }
+
+        if (filter.getSort() == null) {
+            return Sort.unsorted();
+        }
+        if (!TodoFilter.SORT_FIELDS.contains(filter.getSort())) {
+            throw new BadRequestException("Sort must be one of " + TodoFilter.SORT_FIELDS);
+        }
+        return Sort.by(filter.getDirection() != null ? filter.getDirection() : Sort.Direction.ASC, filter.getSort());
+    }
+
+    public static void requirePositiveSize(int size) {
+        if (size < 1) {
+            throw new BadRequestException("Size must be greater than zero");
+        }
+    }
+
+    /**
+     * Builds a slice from a query that fetched {@code size + 1} rows; the extra row only tells
+     * whether another slice follows.
+     */
+    public static <T> SliceResponse<T> toSlice(List<Todo> todos, int size, Function<List<Todo>, List<T>> mapper) {
+        boolean hasNext = todos.size() > size;
+        List<Todo> content = hasNext ? todos.subList(0, size) : todos;
+
+        return SliceResponse.<T>builder()
+                .content(mapper.apply(content))
+                .size(size)
+                .hasNext(hasNext)
+                .nextCursor(hasNext ? encodeCursor(content.get(content.size() - 1)) : null)
+                .build();
+    }
+
+    public static String encodeCursor(Todo todo) {
+        long createdDate = todo.getCreatedDate() != null ? todo.getCreatedDate() : 0L;
+        String position = createdDate + ":" + todo.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static String[] decodeCursor(String cursor) {
+        try {
+            String[] position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(":", 2);
+            if (position.length != 2) {
+                throw new BadRequestException("Invalid cursor");
+            }
+            Long.parseLong(position[0]);
+            return position;
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Invalid cursor");
+        }
+    }
+}
@@ -2,87 +2,129 @@ package com.hepsiemlak.todo.service;
 
 import com.hepsiemlak.todo.aspect.Log;
 import com.hepsiemlak.todo.entity.Todo;
-import com.hepsiemlak.todo.entity.User;
+import com.hepsiemlak.todo.exception.BadRequestException;
+import com.hepsiemlak.todo.exception.ConflictException;
 import com.hepsiemlak.todo.exception.NotFoundException;
+import com.hepsiemlak.todo.exception.PreconditionFailedException;
 import com.hepsiemlak.todo.mapping.TodoMapper;
+import com.hepsiemlak.todo.model.SliceResponse;
 import com.hepsiemlak.todo.model.todo.AddTodoRequest;
+import com.hepsiemlak.todo.model.todo.BatchTodoRequest;
+import com.hepsiemlak.todo.model.todo.BatchTodoResponse;
+import com.hepsiemlak.todo.model.todo.BatchUpdateTodoRequest;
+import com.hepsiemlak.todo.model.todo.TodoFilter;
 import com.hepsiemlak.todo.model.todo.TodoResponse;
+import com.hepsiemlak.todo.model.todo.TodoStatsResponse;
 import com.hepsiemlak.todo.model.todo.UpdateTodoRequest;
 import com.hepsiemlak.todo.repository.TodoRepository;
-import com.hepsiemlak.todo.repository.UserRepository;
 import com.hepsiemlak.todo.util.JwtUtil;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
 @Service
 @RequiredArgsConstructor
 public class TodoService {
 
-    private final UserRepository userRepository;
     private final TodoRepository todoRepository;
     private final TodoMapper todoMapper;
     private final JwtUtil jwtUtil;
+    private final TodoCache todoCache;
+    private final TodoCounters todoCounters;
+
+    @Value("${todo.update.max-retries:3}")
+    private int updateMaxRetries;
 
     @Log
     public void createTodo(String authorization, AddTodoRequest request) {
         String username = jwtUtil.extractUsernameByAuthorization(authorization);
 
-        User user = userRepository.findByUsername(username).orElseThrow(() -> new NotFoundException("User not found"));
+        Todo todo = TodoRules.created(todoMapper.toEntity(request, username));
+        todoCounters.start(username);
+        try {
+            todo = todoRepository.save(todo);
+        } catch (RuntimeException e) {
+            todoCounters.finish(username);
+            throw e;
+        }
+        todoCounters.add(username, 1, todo.isCompleted() ? 1 : 0);
+    }
 
-        Todo todo = todoMapper.toEntity(request, username);
-        Todo savedTodo = todoRepository.save(todo);
 
-        user.getTasks().add(savedTodo.getId());
-        userRepository.save(user);
+    @Log
+    public TodoResponse updateTodo(String authorization, String id, UpdateTodoRequest request) {
+        return updateTodo(authorization, id, request, null);
     }
 
-
+    /**
+     * Updates the todo, only while its version still matches the If-Match header if one is given.
+     * Without a header, an update of the completed flag alone is applied again to the latest
+     * version when a concurrent write gets in first, up to {@code todo.update.max-retries} times.
+     */
     @Log
-    public void updateTodo(String authorization, String id, UpdateTodoRequest request) {
+    public TodoResponse updateTodo(String authorization, String id, UpdateTodoRequest request, String ifMatch) {
         String username = jwtUtil.extractUsernameByAuthorization(authorization);
 
-        Todo todo = todoRepository.findById(id).orElseThrow(() -> new NotFoundException("Task not found"));
-
-        if (!todo.getUsername().equals(username)) {
-            throw new NotFoundException("Task not found");
+        if (ifMatch != null && !TodoRules.ANY_VERSION.equals(ifMatch.trim())) {
+            return updateIfMatch(username, id, request, ifMatch);
         }
 
-        todo = todoMapper.toEntity(request, todo);
-        todoRepository.save(todo);
+        for (int attempt = 0; ; attempt++) {
+            Todo todo = TodoRules.requireOwner(todoRepository.findById(id).orElse(null), username);
+            try {
+                return update(username, todo, request);
+            } catch (OptimisticLockingFailureException e) {
+                todoCache.evict(id);
+                if (attempt >= updateMaxRetries || !TodoRules.isRetryable(request)) {
+                    throw new ConflictException(TodoRules.TASK_MODIFIED);
+                }
+            }
+        }
     }
 
     @Log
     public void deleteTodo(String authorization, String id) {
         try {
             String username = jwtUtil.extractUsernameByAuthorization(authorization);
-            User user = userRepository.findByUsername(username)
-                    .orElseThrow(() -> new NotFoundException("User not found"));
+            Todo todo = TodoRules.requireOwner(todoCache.findById(id).orElse(null), username);
 
-            if (!user.getTasks().contains(id)) {
-                throw new NotFoundException("Task not found");
+            todoCounters.start(username);
+            try {
+                todoRepository.deleteById(id);
+            } catch (RuntimeException e) {
+                todoCounters.finish(username);
+                throw e;
             }
-
-            user.getTasks().remove(id);
-            userRepository.save(user);
-
-            todoRepository.deleteById(id);
+            todoCache.evict(id);
+            todoCounters.add(username, -1, todo.isCompleted() ? -1 : 0);
         } catch (EmptyResultDataAccessException e) {
-            throw new NotFoundException("Task not found");
+            throw new NotFoundException(TodoRules.TASK_NOT_FOUND);
         }
     }
 
     @Log
     public TodoResponse getTodoById(String authorization, String id) {
         String username = jwtUtil.extractUsernameByAuthorization(authorization);
-        Todo todo = todoRepository.findById(id).orElseThrow(() -> new NotFoundException("Task not found"));
-
-        if (!todo.getUsername().equals(username)) {
-            throw new NotFoundException("Task not found");
-        }
+        Todo todo = TodoRules.requireOwner(todoCache.findById(id).orElse(null), username);
 
         return todoMapper.toResponse(todo);
     }
@@ -92,7 +134,286 @@ public class TodoService {
         String username = jwtUtil.extractUsernameByAuthorization(authorization);
         Pageable pageable = PageRequest.of(page, size);
 
-        Page<Todo> todos = todoRepository.findByUsername(username, pageable);
-        return todoMapper.toPageResponse(todos);
+        List<Todo> todos = todoRepository.findByUsername(username, pageable);
+        return todoMapper.toPageResponse(new PageImpl<>(todos, pageable, todoCounters.get(username).getTotal()));
+    }
+
+    /**
+     * The version of the user's todos, which changes with every write and so tags any listing;
+     * empty while a write is in flight, when a listing is left untagged.
+     */
+    @Log
+    public Optional<Long> getTodosVersion(String authorization) {
+        String username = jwtUtil.extractUsernameByAuthorization(authorization);
+
+        return todoCounters.settledVersion(username);
+    }
+
+    @Log
+    public TodoStatsResponse getStats(String authorization) {
+        String username = jwtUtil.extractUsernameByAuthorization(authorization);
+
+        return todoCounters.get(username);
+    }
+
+    /**
+     * Lists the todos with the filter, sort and projection pushed down to the query. Without any
+     * criteria it falls back to the plain paged listing. The total comes from the counters unless
+     * the title is filtered, which is the only case that needs a count query.
+     */
+    @Log
+    public Page<TodoResponse> getTodos(String authorization, int page, int size, TodoFilter filter) {
+        if (TodoRules.isUnfiltered(filter)) {
+            return getTodos(authorization, page, size);
+        }
+
+        String username = jwtUtil.extractUsernameByAuthorization(authorization);
+        Pageable pageable = PageRequest.of(page, size, TodoRules.toSort(filter));
+
+        List<TodoResponse> todos = todoRepository.findProjectedByUsername(username, filter, pageable);
+        return new PageImpl<>(todos, pageable, total(username, filter));
+    }
+
+    /**
+     * Lists the todos in creation order using a keyset cursor, so every page costs the same
+     * index range scan and no total count is computed.
+     */
+    @Log
+    public SliceResponse<TodoResponse> getTodosByCursor(String authorization, String cursor, int size) {
+        String username = jwtUtil.extractUsernameByAuthorization(authorization);
+        TodoRules.requirePositiveSize(size);
+
+        List<Todo> todos;
+        if (cursor == null || cursor.isEmpty()) {
+            todos = todoRepository.findFirstSliceByUsername(username, size + 1);
+        } else {
+            String[] position = TodoRules.decodeCursor(cursor);
+            todos = todoRepository.findSliceByUsernameAfter(username, Long.parseLong(position[0]), position[1], size + 1);
+        }
+
+        return TodoRules.toSlice(todos, size, todoMapper::toResponse);
+    }
+
+    /**
+     * Applies creates, updates and deletes of one user in a single pass. The token is read once,
+     * the todos to update or delete are fetched with one multi-get and every write is pipelined.
+     * Each update replaces the todo only while it still has the version just read, or the item's
+     * {@code ifMatch} when one is sent; a todo changed in the meantime fails alone, with a 409 or
+     * a 412 as a single update would. Touched todos are evicted from the cache.
+     * An id may appear once per operation; a repeated id is rejected, as its outcome and its
+     * effect on the counters would be ambiguous.
+     */
+    @Log
+    public BatchTodoResponse batchTodos(String authorization, BatchTodoRequest request) {
+        String username = jwtUtil.extractUsernameByAuthorization(authorization);
+        requireDistinct("update", nullToEmpty(request.getUpdate()).stream()
+                .map(BatchUpdateTodoRequest::getId)
+                .collect(Collectors.toList()));
+        requireDistinct("delete", nullToEmpty(request.getDelete()));
+
+        List<Todo> created = new ArrayList<>();
+        for (AddTodoRequest addTodoRequest : nullToEmpty(request.getCreate())) {
+            Todo todo = TodoRules.created(todoMapper.toEntity(addTodoRequest, username));
+            todo.setId(UUID.randomUUID().toString());
+            created.add(todo);
+        }
+
+        Set<String> ids = new LinkedHashSet<>(nullToEmpty(request.getDelete()));
+        nullToEmpty(request.getUpdate()).forEach(update -> ids.add(update.getId()));
+        Map<String, Todo> owned = new HashMap<>();
+        Map<String, Boolean> wasCompleted = new HashMap<>();
+        todoRepository.findAllById(ids).forEach(todo -> {
+            if (todo.getUsername().equals(username)) {
+                owned.put(todo.getId(), todo);
+                wasCompleted.put(todo.getId(), todo.isCompleted());
+            }
+        });
+
+        List<Todo> updated = new ArrayList<>();
+        Map<String, Throwable> updateFailures = new HashMap<>();
+        Set<String> conditional = new HashSet<>();
+        for (BatchUpdateTodoRequest update : nullToEmpty(request.getUpdate())) {
+            Todo todo = owned.get(update.getId());
+            if (todo == null) {
+                continue;
+            }
+            if (update.getIfMatch() != null && !TodoRules.ANY_VERSION.equals(update.getIfMatch().trim())) {
+                conditional.add(update.getId());
+                if (!TodoRules.matchesIfMatch(update.getIfMatch(), todo.getVersion())) {
+                    updateFailures.put(update.getId(), new PreconditionFailedException(TodoRules.TASK_VERSION_MISMATCH));
+                    continue;
+                }
+            }
+            updated.add(todoMapper.toEntity(update, todo));
+        }
+
+        List<String> deleted = new ArrayList<>();
+        nullToEmpty(request.getDelete()).stream().filter(owned::containsKey).forEach(deleted::add);
+
+        Map<String, Throwable> createFailures;
+        Map<String, Throwable> deleteFailures;
+        todoCounters.start(username);
+        try {
+            createFailures = created.isEmpty() ? Collections.emptyMap() : todoRepository.insertAll(created);
+            if (!updated.isEmpty()) {
+                todoRepository.replaceAll(updated)
+                        .forEach((id, failure) -> updateFailures.put(id, updateFailure(failure, conditional.contains(id))));
+            }
+            deleteFailures = deleted.isEmpty() ? Collections.emptyMap() : todoRepository.removeAllById(deleted);
+        } catch (RuntimeException e) {
+            todoCounters.finish(username);
+            throw e;
+        }
+
+        updated.forEach(todo -> todoCache.evict(todo.getId()));
+        deleted.forEach(todoCache::evict);
+
+        // A todo both updated and removed only counts as removed, with the state it had before.
+        Set<String> removed = new LinkedHashSet<>(deleted);
+        removed.removeAll(deleteFailures.keySet());
+        long totalDelta = -removed.size();
+        long completedDelta = -removed.stream().filter(wasCompleted::get).count();
+        for (Todo todo : created) {
+            if (!createFailures.containsKey(todo.getId())) {
+                totalDelta++;
+                completedDelta += todo.isCompleted() ? 1 : 0;
+            }
+        }
+        for (Todo todo : updated) {
+            if (!updateFailures.containsKey(todo.getId()) && !removed.contains(todo.getId())) {
+                completedDelta += completedDelta(wasCompleted.get(todo.getId()), todo.isCompleted());
+            }
+        }
+        todoCounters.add(username, totalDelta, completedDelta);
+
+        List<BatchTodoResponse.Result> createResults = new ArrayList<>();
+        created.forEach(todo -> createResults.add(toResult(todo.getId(), HttpStatus.CREATED, createFailures)));
+
+        List<BatchTodoResponse.Result> updateResults = new ArrayList<>();
+        nullToEmpty(request.getUpdate()).forEach(update -> updateResults.add(owned.containsKey(update.getId())
+                ? toResult(update.getId(), HttpStatus.OK, updateFailures)
+                : notFoundResult(update.getId())));
+
+        List<BatchTodoResponse.Result> deleteResults = new ArrayList<>();
+        nullToEmpty(request.getDelete()).forEach(id -> deleteResults.add(owned.containsKey(id)
+                ? toResult(id, HttpStatus.OK, deleteFailures)
+                : notFoundResult(id)));
+
+        return BatchTodoResponse.builder()
+                .create(createResults)
+                .update(updateResults)
+                .delete(deleteResults)
+                .build();
+    }
+
+    /**
+     * A cached copy at the expected version is as good as a database read, so an update that
+     * wins costs a single write. The save itself compares the version, which catches any write
+     * made after the check.
+     */
+    private TodoResponse updateIfMatch(String username, String id, UpdateTodoRequest request, String ifMatch) {
+        Todo todo = TodoRules.requireOwner(todoCache.findById(id).orElse(null), username);
+        if (!TodoRules.matchesIfMatch(ifMatch, todo.getVersion())) {
+            // The cached copy may be older than the version the client holds.
+            todo = TodoRules.requireOwner(todoRepository.findById(id).orElse(null), username);
+            TodoRules.requireIfMatch(ifMatch, todo.getVersion());
+        }
+
+        try {
+            return update(username, todo, request);
+        } catch (OptimisticLockingFailureException e) {
+            todoCache.evict(id);
+            throw new PreconditionFailedException(TodoRules.TASK_VERSION_MISMATCH);
+        }
+    }
+
+    private TodoResponse update(String username, Todo todo, UpdateTodoRequest request) {
+        boolean wasCompleted = todo.isCompleted();
+
+        Todo saved;
+        todoCounters.start(username);
+        try {
+            saved = todoRepository.save(todoMapper.toEntity(request, todo));
+        } catch (RuntimeException e) {
+            todoCounters.finish(username);
+            throw e;
+        }
+        todoCache.put(saved);
+        todoCounters.add(username, 0, completedDelta(wasCompleted, saved.isCompleted()));
+        return todoMapper.toResponse(saved);
+    }
+
+    private BatchTodoResponse.Result toResult(String id, HttpStatus status, Map<String, Throwable> failures) {
+        Throwable failure = failures.get(id);
+        if (failure != null) {
+            return BatchTodoResponse.Result.builder()
+                    .id(id)
+                    .status(failureStatus(failure).value())
+                    .message(failure.getMessage())
+                    .build();
+        }
+        return BatchTodoResponse.Result.builder().id(id).status(status.value()).build();
+    }
+
+    /**
+     * Reports a lost CAS the way a single update would: a 412 for an item sent with If-Match and
+     * a 409 otherwise.
+     */
+    private static Throwable updateFailure(Throwable failure, boolean conditional) {
+        if (!(failure instanceof OptimisticLockingFailureException)) {
+            return failure;
+        }
+        return conditional
+                ? new PreconditionFailedException(TodoRules.TASK_VERSION_MISMATCH)
+                : new ConflictException(TodoRules.TASK_MODIFIED);
+    }
+
+    private static HttpStatus failureStatus(Throwable failure) {
+        if (failure instanceof ConflictException) {
+            return HttpStatus.CONFLICT;
+        }
+        if (failure instanceof PreconditionFailedException) {
+            return HttpStatus.PRECONDITION_FAILED;
+        }
+        return HttpStatus.INTERNAL_SERVER_ERROR;
+    }
+
+    private BatchTodoResponse.Result notFoundResult(String id) {
+        return BatchTodoResponse.Result.builder()
+                .id(id)
+                .status(HttpStatus.NOT_FOUND.value())
+                .message(TodoRules.TASK_NOT_FOUND)
+                .build();
+    }
+
+    private static long completedDelta(boolean wasCompleted, boolean completed) {
+        if (wasCompleted == completed) {
+            return 0;
+        }
+        return completed ? 1 : -1;
+    }
+
+    private long total(String username, TodoFilter filter) {
+        if (TodoRules.filtersTitle(filter)) {
+            return todoRepository.countProjectedByUsername(username, filter);
+        }
+
+        TodoStatsResponse stats = todoCounters.get(username);
+        if (filter.getCompleted() == null) {
+            return stats.getTotal();
+        }
+        return filter.getCompleted() ? stats.getCompleted() : stats.getOpen();
+    }
+
+    private static void requireDistinct(String operation, List<String> ids) {
+        Set<String> seen = new HashSet<>();
+        Set<String> duplicates = ids.stream().filter(id -> !seen.add(id)).collect(Collectors.toCollection(LinkedHashSet::new));
+        if (!duplicates.isEmpty()) {
+            throw new BadRequestException("Duplicate " + operation + " ids " + duplicates);
+        }
+    }
+
+    private static <T> List<T> nullToEmpty(List<T> list) {
+        return list != null ? list : Collections.emptyList();
     }
 }
@@ -0,0 +1,145 @@
+package com.hepsiemlak.todo.service;
+
+import com.hepsiemlak.todo.repository.TokenRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Periodically removes expired tokens and trims every user to their newest active tokens.
+ * Each run deletes at most {@code max-batches-per-run} batches, with a bounded number of removes
+ * in flight and no more than {@code max-deletes-per-second}, so that it only takes a fixed
+ * share of the cluster. Excess tokens are found one page of {@code batch-size} usernames at a
+ * time, ranking only that page's tokens; the page to continue from is kept between runs until
+ * every user has been visited, after which the next run starts over.
+ * <p>
+ * Every node with {@code token-reaper.enabled} reaps, without coordinating with the others. The
+ * id queries wait for the index to catch up and tokens already removed are not failures, so
+ * nodes reaping at the same time only repeat each other's removes; the load they put on the
+ * cluster adds up, though, so large deployments may enable the reaper on a single node.
+ */
+@Component
+@ConditionalOnProperty(name = "token-reaper.enabled", havingValue = "true", matchIfMissing = true)
+public class TokenReaper {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenReaper.class);
+
+    static final String EXPIRED = "expired";
+    static final String EXCESS = "excess";
+
+    private final TokenRepository tokenRepository;
+    private final MeterRegistry meterRegistry;
+    private final int batchSize;
+    private final int maxBatchesPerRun;
+    private final int concurrency;
+    private final int maxDeletesPerSecond;
+    private final int maxActivePerUser;
+    private String excessCursor = "";
+
+    public TokenReaper(TokenRepository tokenRepository,
+                       MeterRegistry meterRegistry,
+                       @Value("${token-reaper.batch-size:500}") int batchSize,
+                       @Value("${token-reaper.max-batches-per-run:20}") int maxBatchesPerRun,
+                       @Value("${token-reaper.concurrency:8}") int concurrency,
+                       @Value("${token-reaper.max-deletes-per-second:500}") int maxDeletesPerSecond,
+                       @Value("${token-reaper.max-active-per-user:10}") int maxActivePerUser) {
+        if (maxDeletesPerSecond < 1) {
+            throw new IllegalStateException("token-reaper.max-deletes-per-second must be at least 1, was " + maxDeletesPerSecond);
+        }
+        this.tokenRepository = tokenRepository;
+        this.meterRegistry = meterRegistry;
+        this.batchSize = batchSize;
+        this.maxBatchesPerRun = maxBatchesPerRun;
+        this.concurrency = concurrency;
+        this.maxDeletesPerSecond = maxDeletesPerSecond;
+        this.maxActivePerUser = maxActivePerUser;
+    }
+
+    @Scheduled(initialDelayString = "${token-reaper.initial-delay:PT1M}", fixedDelayString = "${token-reaper.interval:PT5M}")
+    public void reap() {
+        long now = System.currentTimeMillis();
+        reap(EXPIRED, () -> tokenRepository.findExpiredIds(now, batchSize));
+        if (maxActivePerUser > 0) {
+            reapExcess(now);
+        }
+    }
+
+    private void reapExcess(long now) {
+        for (int batch = 0; batch < maxBatchesPerRun && !Thread.currentThread().isInterrupted(); batch++) {
+            long start = System.nanoTime();
+            List<String> usernames = tokenRepository.findUsernamesWithTokens(excessCursor, now, batchSize);
+            if (usernames.isEmpty()) {
+                excessCursor = "";
+                return;
+            }
+
+            String last = usernames.get(usernames.size() - 1);
+            List<String> ids = tokenRepository.findExcessIds(maxActivePerUser, now, usernames.get(0), last);
+            counter("token.reaper.scanned", EXCESS).increment(ids.size());
+            if (!ids.isEmpty() && remove(EXCESS, ids).size() == ids.size()) {
+                // The page is visited again on the next run.
+                return;
+            }
+
+            if (usernames.size() < batchSize) {
+                excessCursor = "";
+                return;
+            }
+            excessCursor = last;
+            throttle(ids.size(), start);
+        }
+    }
+
+    private void reap(String reason, Supplier<List<String>> nextBatch) {
+        for (int batch = 0; batch < maxBatchesPerRun && !Thread.currentThread().isInterrupted(); batch++) {
+            long start = System.nanoTime();
+            List<String> ids = nextBatch.get();
+            counter("token.reaper.scanned", reason).increment(ids.size());
+            if (ids.isEmpty()) {
+                return;
+            }
+
+            Map<String, Throwable> failures = remove(reason, ids);
+            if (ids.size() < batchSize || failures.size() == ids.size()) {
+                return;
+            }
+            throttle(ids.size(), start);
+        }
+    }
+
+    private Map<String, Throwable> remove(String reason, List<String> ids) {
+        Map<String, Throwable> failures = tokenRepository.removeAllById(ids, concurrency);
+        counter("token.reaper.deleted", reason).increment(ids.size() - failures.size());
+        if (!failures.isEmpty()) {
+            counter("token.reaper.failed", reason).increment(failures.size());
+            logger.warn("Could not remove {} {} tokens", failures.size(), reason);
+        }
+        return failures;
+    }
+
+    private void throttle(int deletes, long startNanos) {
+        long budget = TimeUnit.SECONDS.toNanos(deletes) / maxDeletesPerSecond;
+        long remaining = budget - (System.nanoTime() - startNanos);
+        if (remaining > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(remaining);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private Counter counter(String name, String reason) {
+        return meterRegistry.counter(name, "reason", reason);
+    }
+}
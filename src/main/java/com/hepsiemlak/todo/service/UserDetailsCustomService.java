@@ -1,5 +1,6 @@
 package com.hepsiemlak.todo.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
 import com.hepsiemlak.todo.entity.User;
 import com.hepsiemlak.todo.exception.NotFoundException;
 import com.hepsiemlak.todo.model.user.CustomUserDetails;
@@ -18,9 +19,22 @@ import java.util.Optional;
 public class UserDetailsCustomService implements UserDetailsService {
 
     private final UserRepository userRepository;
+    private final Cache<String, CustomUserDetails> userDetailsCache;
 
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
+        return userDetailsCache.get(username, this::findUserDetails);
+    }
+
+    /**
+     * Drops the cached details of the user. Must be called whenever the password or the
+     * lastModifiedDate changes, otherwise revoked tokens keep validating until the entry expires.
+     */
+    public void evictUser(String username) {
+        userDetailsCache.invalidate(username);
+    }
+
+    private CustomUserDetails findUserDetails(String username) {
         Optional<User> optional = userRepository.findByUsername(username);
         if (optional.isEmpty()) {
             throw new NotFoundException("User not found");
@@ -7,15 +7,17 @@ import com.hepsiemlak.todo.exception.ConflictException;
 import com.hepsiemlak.todo.exception.NotFoundException;
 import com.hepsiemlak.todo.exception.UnauthorizedException;
 import com.hepsiemlak.todo.mapping.UserMapper;
+import com.hepsiemlak.todo.model.user.AccountDeletionJobResponse;
 import com.hepsiemlak.todo.model.user.PasswordRequest;
 import com.hepsiemlak.todo.model.user.RefreshTokenRequest;
 import com.hepsiemlak.todo.model.user.UserRequest;
-import com.hepsiemlak.todo.repository.TodoRepository;
 import com.hepsiemlak.todo.repository.TokenRepository;
 import com.hepsiemlak.todo.repository.UserRepository;
 import com.hepsiemlak.todo.util.JwtUtil;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
@@ -31,9 +33,10 @@ public class UserService {
     private final JwtUtil jwtUtil;
     private final UserMapper userMapper;
     private final UserRepository userRepository;
-    private final TodoRepository todoRepository;
     private final PasswordEncoder passwordEncoder;
     private final TokenRepository tokenRepository;
+    private final UserDetailsCustomService userDetailsCustomService;
+    private final AccountDeletionService accountDeletionService;
 
     @Value("${jwt.refresh-expiration}")
     private Long refreshExpiration;
@@ -47,10 +50,15 @@ public class UserService {
         }
 
         User user = userMapper.toEntity(request);
+        user.setId(User.idOf(request.getUsername()));
         user.setPassword(passwordEncoder.encode(request.getPassword()));
         user.setLastModifiedDate(System.currentTimeMillis());
-        User savedUser = userRepository.save(user);
-        return savedUser.getId();
+        try {
+            User savedUser = userRepository.save(user);
+            return savedUser.getId();
+        } catch (DuplicateKeyException e) {
+            throw new ConflictException("User already exists");
+        }
     }
 
     @Log
@@ -61,13 +69,14 @@ public class UserService {
         if (!passwordEncoder.matches(request.getPassword(), user.getPassword())) {
             throw new UnauthorizedException("Bad credentials");
         }
+        rehashIfOutdated(user, request.getPassword());
 
         String accessToken = jwtUtil.generateToken(request.getUsername(), user.getLastModifiedDate());
         String refreshToken = UUID.randomUUID().toString();
 
-        tokenRepository.save(Token.builder()
+        tokenRepository.insert(Token.builder()
+                .id(Token.idOf(refreshToken))
                 .accessToken(accessToken)
-                .refreshToken(refreshToken)
                 .username(request.getUsername())
                 .expirationDate(System.currentTimeMillis() + refreshExpiration)
                 .build());
@@ -84,6 +93,10 @@ public class UserService {
         Token token = tokenRepository.findByRefreshToken(request.getRefreshToken())
                 .orElseThrow(() -> new NotFoundException("Refresh token not found"));
 
+        if (Boolean.TRUE.equals(token.getConsumed())) {
+            throw new UnauthorizedException("Refresh token already used");
+        }
+
         if (token.getExpirationDate() < System.currentTimeMillis()) {
             throw new UnauthorizedException("Refresh token expired");
         }
@@ -100,13 +113,20 @@ public class UserService {
             throw new NotFoundException("User not found");
         }
 
+        // the CAS replace lets only one of two concurrent refreshes with the same token through
+        token.setConsumed(true);
+        try {
+            tokenRepository.replace(token);
+        } catch (OptimisticLockingFailureException e) {
+            throw new UnauthorizedException("Refresh token already used");
+        }
+
         String newAccessToken = jwtUtil.generateToken(user.getUsername(), user.getLastModifiedDate());
         String newRefreshToken = UUID.randomUUID().toString();
 
-        tokenRepository.save(Token.builder()
-                .id(token.getId())
+        tokenRepository.insert(Token.builder()
+                .id(Token.idOf(newRefreshToken))
                 .accessToken(newAccessToken)
-                .refreshToken(newRefreshToken)
                 .username(username)
                 .expirationDate(System.currentTimeMillis() + refreshExpiration)
                 .build());
@@ -130,15 +150,41 @@ public class UserService {
         user.setPassword(passwordEncoder.encode(request.getNewPassword()));
         user.setLastModifiedDate(System.currentTimeMillis());
         userRepository.save(user);
+        userDetailsCustomService.evictUser(user.getUsername());
+    }
+
+    /**
+     * Re-encodes a hash made with an older cost factor. lastModifiedDate is left alone so that
+     * issued tokens stay valid, and a concurrent update simply wins over the rehash.
+     */
+    private void rehashIfOutdated(User user, String rawPassword) {
+        if (!passwordEncoder.upgradeEncoding(user.getPassword())) {
+            return;
+        }
+
+        user.setPassword(passwordEncoder.encode(rawPassword));
+        try {
+            userRepository.save(user);
+            userDetailsCustomService.evictUser(user.getUsername());
+        } catch (OptimisticLockingFailureException e) {
+            // the password changed meanwhile; the next login rehashes if still needed
+        }
     }
 
+    /**
+     * Starts the deletion of the account and returns the id of the job removing its todos.
+     */
     @Log
-    public void deleteUser(String authorization) {
+    public String deleteUser(String authorization) {
         String username = jwtUtil.extractUsernameByAuthorization(authorization);
-        User user = userRepository.findByUsername(username)
+        userRepository.findByUsername(username)
                 .orElseThrow(() -> new NotFoundException("User not found"));
 
-        user.getTasks().forEach(todoRepository::deleteById);
-        userRepository.deleteByUsername(username);
+        return accountDeletionService.submit(username);
+    }
+
+    @Log
+    public AccountDeletionJobResponse getDeletionJob(String jobId) {
+        return accountDeletionService.getJob(jobId);
     }
 }
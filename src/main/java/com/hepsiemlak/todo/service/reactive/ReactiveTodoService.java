@@ -0,0 +1,200 @@
+package com.hepsiemlak.todo.service.reactive;
+
+import com.hepsiemlak.todo.entity.Todo;
+import com.hepsiemlak.todo.exception.ConflictException;
+import com.hepsiemlak.todo.exception.NotFoundException;
+import com.hepsiemlak.todo.exception.PreconditionFailedException;
+import com.hepsiemlak.todo.mapping.TodoMapper;
+import com.hepsiemlak.todo.model.SliceResponse;
+import com.hepsiemlak.todo.model.todo.AddTodoRequest;
+import com.hepsiemlak.todo.model.todo.BatchTodoRequest;
+import com.hepsiemlak.todo.model.todo.BatchTodoResponse;
+import com.hepsiemlak.todo.model.todo.TodoFilter;
+import com.hepsiemlak.todo.model.todo.TodoResponse;
+import com.hepsiemlak.todo.model.todo.TodoStatsResponse;
+import com.hepsiemlak.todo.model.todo.UpdateTodoRequest;
+import com.hepsiemlak.todo.repository.reactive.ReactiveTodoRepository;
+import com.hepsiemlak.todo.service.TodoCache;
+import com.hepsiemlak.todo.service.TodoRules;
+import com.hepsiemlak.todo.service.TodoCounters;
+import com.hepsiemlak.todo.service.TodoService;
+import com.hepsiemlak.todo.util.JwtUtil;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.retry.Retry;
+
+import java.util.Optional;
+
+/**
+ * Non-blocking variant of {@link TodoService} following the same {@link TodoRules}. Filtered
+ * listing, batches and the {@link TodoCounters} calls run on the bounded elastic scheduler.
+ * Writes keep the {@link TodoCache} coherent the same way, through the scheduler as well since
+ * the invalidation bus behind it may block.
+ */
+@Service
+@Profile("reactive")
+@RequiredArgsConstructor
+public class ReactiveTodoService {
+
+    private final ReactiveTodoRepository todoRepository;
+    private final TodoMapper todoMapper;
+    private final JwtUtil jwtUtil;
+    private final TodoService todoService;
+    private final TodoCounters todoCounters;
+    private final TodoCache todoCache;
+
+    @Value("${todo.update.max-retries:3}")
+    private int updateMaxRetries;
+
+    public Mono<Void> createTodo(String authorization, AddTodoRequest request) {
+        return username(authorization)
+                .map(username -> TodoRules.created(todoMapper.toEntity(request, username)))
+                .flatMap(todo -> write(todo.getUsername(), todoRepository.save(todo))
+                        .flatMap(saved -> addCounts(saved.getUsername(), 1, saved.isCompleted() ? 1 : 0)));
+    }
+
+    public Mono<TodoResponse> updateTodo(String authorization, String id, UpdateTodoRequest request) {
+        return updateTodo(authorization, id, request, null);
+    }
+
+    /**
+     * Same contract as {@link TodoService#updateTodo(String, String, UpdateTodoRequest, String)};
+     * a retry reads the todo again before applying the update.
+     */
+    public Mono<TodoResponse> updateTodo(String authorization, String id, UpdateTodoRequest request, String ifMatch) {
+        if (ifMatch != null && !TodoRules.ANY_VERSION.equals(ifMatch.trim())) {
+            return findOwned(authorization, id)
+                    .doOnNext(todo -> TodoRules.requireIfMatch(ifMatch, todo.getVersion()))
+                    .flatMap(todo -> update(todo, request))
+                    .onErrorMap(OptimisticLockingFailureException.class,
+                            e -> new PreconditionFailedException(TodoRules.TASK_VERSION_MISMATCH));
+        }
+
+        return findOwned(authorization, id)
+                .flatMap(todo -> update(todo, request))
+                .retryWhen(Retry.max(TodoRules.isRetryable(request) ? updateMaxRetries : 0)
+                        .filter(OptimisticLockingFailureException.class::isInstance)
+                        .onRetryExhaustedThrow((spec, signal) -> signal.failure()))
+                .onErrorMap(OptimisticLockingFailureException.class, e -> new ConflictException(TodoRules.TASK_MODIFIED));
+    }
+
+    public Mono<Void> deleteTodo(String authorization, String id) {
+        return findOwned(authorization, id)
+                .flatMap(todo -> write(todo.getUsername(), todoRepository.deleteById(todo.getId()))
+                        .then(evict(todo.getId()))
+                        .then(addCounts(todo.getUsername(), -1, todo.isCompleted() ? -1 : 0)));
+    }
+
+    public Mono<TodoResponse> getTodoById(String authorization, String id) {
+        return findOwned(authorization, id).map(todoMapper::toResponse);
+    }
+
+    public Mono<Page<TodoResponse>> getTodos(String authorization, int page, int size, TodoFilter filter) {
+        if (!TodoRules.isUnfiltered(filter)) {
+            return Mono.fromCallable(() -> todoService.getTodos(authorization, page, size, filter))
+                    .subscribeOn(Schedulers.boundedElastic());
+        }
+
+        Pageable pageable = PageRequest.of(page, size);
+        return username(authorization)
+                .flatMap(username -> Mono.zip(
+                        todoRepository.findByUsername(username, pageable).collectList(),
+                        counts(username)))
+                .map(tuple -> new PageImpl<>(todoMapper.toResponse(tuple.getT1()), pageable, tuple.getT2().getTotal()));
+    }
+
+    public Mono<Optional<Long>> getTodosVersion(String authorization) {
+        return username(authorization)
+                .flatMap(username -> Mono.fromCallable(() -> todoCounters.settledVersion(username))
+                        .subscribeOn(Schedulers.boundedElastic()));
+    }
+
+    public Mono<TodoStatsResponse> getStats(String authorization) {
+        return username(authorization).flatMap(this::counts);
+    }
+
+    public Mono<SliceResponse<TodoResponse>> getTodosByCursor(String authorization, String cursor, int size) {
+        return username(authorization)
+                .flatMapMany(username -> {
+                    TodoRules.requirePositiveSize(size);
+                    if (cursor == null || cursor.isEmpty()) {
+                        return todoRepository.findFirstSliceByUsername(username, size + 1);
+                    }
+                    String[] position = TodoRules.decodeCursor(cursor);
+                    return todoRepository.findSliceByUsernameAfter(username, Long.parseLong(position[0]), position[1], size + 1);
+                })
+                .collectList()
+                .map(todos -> TodoRules.toSlice(todos, size, todoMapper::toResponse));
+    }
+
+    public Mono<BatchTodoResponse> batchTodos(String authorization, BatchTodoRequest request) {
+        return Mono.fromCallable(() -> todoService.batchTodos(authorization, request))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private Mono<Todo> findOwned(String authorization, String id) {
+        return username(authorization)
+                .flatMap(username -> todoRepository.findById(id)
+                        .switchIfEmpty(Mono.error(() -> new NotFoundException(TodoRules.TASK_NOT_FOUND)))
+                        .map(todo -> TodoRules.requireOwner(todo, username)));
+    }
+
+    private Mono<TodoResponse> update(Todo todo, UpdateTodoRequest request) {
+        boolean wasCompleted = todo.isCompleted();
+        return write(todo.getUsername(), todoRepository.save(todoMapper.toEntity(request, todo)))
+                .onErrorResume(OptimisticLockingFailureException.class, e -> evict(todo.getId()).then(Mono.error(e)))
+                .flatMap(saved -> cache(saved)
+                        .then(addCounts(saved.getUsername(), 0,
+                                wasCompleted == saved.isCompleted() ? 0 : saved.isCompleted() ? 1 : -1))
+                        .thenReturn(todoMapper.toResponse(saved)));
+    }
+
+    private Mono<Void> cache(Todo todo) {
+        return Mono.fromRunnable(() -> todoCache.put(todo))
+                .subscribeOn(Schedulers.boundedElastic())
+                .then();
+    }
+
+    private Mono<Void> evict(String id) {
+        return Mono.fromRunnable(() -> todoCache.evict(id))
+                .subscribeOn(Schedulers.boundedElastic())
+                .then();
+    }
+
+    private Mono<TodoStatsResponse> counts(String username) {
+        return Mono.fromCallable(() -> todoCounters.get(username))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    /**
+     * Brackets the write as {@link TodoCounters#start} requires; a write that fails is finished
+     * here, one that succeeds by the {@link #addCounts} that follows it.
+     */
+    private <T> Mono<T> write(String username, Mono<T> write) {
+        return Mono.fromRunnable(() -> todoCounters.start(username))
+                .subscribeOn(Schedulers.boundedElastic())
+                .then(write)
+                .onErrorResume(e -> Mono.fromRunnable(() -> todoCounters.finish(username))
+                        .subscribeOn(Schedulers.boundedElastic())
+                        .then(Mono.error(e)));
+    }
+
+    private Mono<Void> addCounts(String username, long total, long completed) {
+        return Mono.fromRunnable(() -> todoCounters.add(username, total, completed))
+                .subscribeOn(Schedulers.boundedElastic())
+                .then();
+    }
+
+    private Mono<String> username(String authorization) {
+        return Mono.fromCallable(() -> jwtUtil.extractUsernameByAuthorization(authorization));
+    }
+}
@@ -0,0 +1,45 @@
+package com.hepsiemlak.todo.service.reactive;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.hepsiemlak.todo.exception.NotFoundException;
+import com.hepsiemlak.todo.model.user.CustomUserDetails;
+import com.hepsiemlak.todo.repository.reactive.ReactiveUserRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.security.core.userdetails.ReactiveUserDetailsService;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+
+/**
+ * Reactive lookup of user details. It shares the cache of the blocking service, so
+ * {@code UserDetailsCustomService.evictUser} applies to both.
+ */
+@Service
+@Profile("reactive")
+@RequiredArgsConstructor
+public class ReactiveUserDetailsCustomService implements ReactiveUserDetailsService {
+
+    private final ReactiveUserRepository userRepository;
+    private final Cache<String, CustomUserDetails> userDetailsCache;
+
+    @Override
+    public Mono<UserDetails> findByUsername(String username) {
+        CustomUserDetails cached = userDetailsCache.getIfPresent(username);
+        if (cached != null) {
+            return Mono.just(cached);
+        }
+
+        return userRepository.findByUsername(username)
+                .switchIfEmpty(Mono.error(() -> new NotFoundException("User not found")))
+                .map(user -> new CustomUserDetails(
+                        user.getUsername(),
+                        user.getPassword(),
+                        new ArrayList<>(),
+                        user.getLastModifiedDate()))
+                .doOnNext(userDetails -> userDetailsCache.put(username, userDetails))
+                .cast(UserDetails.class);
+    }
+}
@@ -0,0 +1,172 @@
+package com.hepsiemlak.todo.service.reactive;
+
+import com.hepsiemlak.todo.entity.Token;
+import com.hepsiemlak.todo.entity.User;
+import com.hepsiemlak.todo.exception.ConflictException;
+import com.hepsiemlak.todo.exception.NotFoundException;
+import com.hepsiemlak.todo.exception.UnauthorizedException;
+import com.hepsiemlak.todo.mapping.UserMapper;
+import com.hepsiemlak.todo.model.user.AccountDeletionJobResponse;
+import com.hepsiemlak.todo.model.user.PasswordRequest;
+import com.hepsiemlak.todo.model.user.RefreshTokenRequest;
+import com.hepsiemlak.todo.model.user.UserRequest;
+import com.hepsiemlak.todo.repository.reactive.ReactiveTokenRepository;
+import com.hepsiemlak.todo.repository.reactive.ReactiveUserRepository;
+import com.hepsiemlak.todo.service.AccountDeletionService;
+import com.hepsiemlak.todo.service.UserDetailsCustomService;
+import com.hepsiemlak.todo.util.JwtUtil;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+
+/**
+ * Non-blocking variant of {@code UserService}. Password hashing waits on the hashing pool, so
+ * it is moved off the event loop, as is submitting an account deletion job.
+ */
+@Service
+@Profile("reactive")
+@RequiredArgsConstructor
+public class ReactiveUserService {
+
+    private final JwtUtil jwtUtil;
+    private final UserMapper userMapper;
+    private final ReactiveUserRepository userRepository;
+    private final PasswordEncoder passwordEncoder;
+    private final ReactiveTokenRepository tokenRepository;
+    private final UserDetailsCustomService userDetailsCustomService;
+    private final AccountDeletionService accountDeletionService;
+
+    @Value("${jwt.refresh-expiration}")
+    private Long refreshExpiration;
+
+    public Mono<String> registerUser(UserRequest request) {
+        return userRepository.findByUsername(request.getUsername())
+                .flatMap(existing -> Mono.<User>error(new ConflictException("User already exists")))
+                .switchIfEmpty(offload(() -> passwordEncoder.encode(request.getPassword()))
+                        .map(encodedPassword -> {
+                            User user = userMapper.toEntity(request);
+                            user.setId(User.idOf(request.getUsername()));
+                            user.setPassword(encodedPassword);
+                            user.setLastModifiedDate(System.currentTimeMillis());
+                            return user;
+                        })
+                        .flatMap(userRepository::save))
+                .onErrorMap(DuplicateKeyException.class, e -> new ConflictException("User already exists"))
+                .map(User::getId);
+    }
+
+    public Mono<Map<String, String>> loginUser(UserRequest request) {
+        return findUser(request.getUsername())
+                .flatMap(user -> offload(() -> passwordEncoder.matches(request.getPassword(), user.getPassword()))
+                        .flatMap(matches -> matches
+                                ? rehashIfOutdated(user, request.getPassword())
+                                : Mono.error(new UnauthorizedException("Bad credentials"))))
+                .flatMap(this::issueTokens);
+    }
+
+    public Mono<Map<String, String>> refreshToken(RefreshTokenRequest request) {
+        return tokenRepository.findByRefreshToken(request.getRefreshToken())
+                .switchIfEmpty(Mono.error(() -> new NotFoundException("Refresh token not found")))
+                .flatMap(token -> {
+                    if (Boolean.TRUE.equals(token.getConsumed())) {
+                        return Mono.error(new UnauthorizedException("Refresh token already used"));
+                    }
+                    if (token.getExpirationDate() < System.currentTimeMillis()) {
+                        return Mono.error(new UnauthorizedException("Refresh token expired"));
+                    }
+                    if (!token.getAccessToken().equals(request.getAccessToken())) {
+                        return Mono.error(new UnauthorizedException("Access token is not valid"));
+                    }
+
+                    String username = jwtUtil.extractUsernameByToken(request.getAccessToken());
+                    return findUser(token.getUsername())
+                            .filter(user -> username.equals(user.getUsername()))
+                            .switchIfEmpty(Mono.error(() -> new NotFoundException("User not found")))
+                            .flatMap(user -> {
+                                token.setConsumed(true);
+                                return tokenRepository.replace(token)
+                                        .onErrorMap(OptimisticLockingFailureException.class,
+                                                e -> new UnauthorizedException("Refresh token already used"))
+                                        .then(Mono.defer(() -> issueTokens(user)));
+                            });
+                });
+    }
+
+    public Mono<Void> changePassword(PasswordRequest request) {
+        return findUser(request.getUsername())
+                .flatMap(user -> offload(() -> {
+                    if (!passwordEncoder.matches(request.getOldPassword(), user.getPassword())) {
+                        throw new UnauthorizedException("Bad credentials");
+                    }
+                    return passwordEncoder.encode(request.getNewPassword());
+                }).flatMap(encodedPassword -> {
+                    user.setPassword(encodedPassword);
+                    user.setLastModifiedDate(System.currentTimeMillis());
+                    return userRepository.save(user);
+                }))
+                .doOnNext(user -> userDetailsCustomService.evictUser(user.getUsername()))
+                .then();
+    }
+
+    public Mono<String> deleteUser(String authorization) {
+        return Mono.fromCallable(() -> jwtUtil.extractUsernameByAuthorization(authorization))
+                .flatMap(this::findUser)
+                .flatMap(user -> offload(() -> accountDeletionService.submit(user.getUsername())));
+    }
+
+    public Mono<AccountDeletionJobResponse> getDeletionJob(String jobId) {
+        return offload(() -> accountDeletionService.getJob(jobId));
+    }
+
+    private Mono<User> rehashIfOutdated(User user, String rawPassword) {
+        if (!passwordEncoder.upgradeEncoding(user.getPassword())) {
+            return Mono.just(user);
+        }
+
+        return offload(() -> passwordEncoder.encode(rawPassword))
+                .flatMap(encodedPassword -> {
+                    user.setPassword(encodedPassword);
+                    return userRepository.save(user);
+                })
+                .doOnNext(saved -> userDetailsCustomService.evictUser(saved.getUsername()))
+                .onErrorResume(OptimisticLockingFailureException.class, e -> Mono.just(user));
+    }
+
+    private Mono<Map<String, String>> issueTokens(User user) {
+        String accessToken = jwtUtil.generateToken(user.getUsername(), user.getLastModifiedDate());
+        String refreshToken = UUID.randomUUID().toString();
+
+        return tokenRepository.insert(Token.builder()
+                        .id(Token.idOf(refreshToken))
+                        .accessToken(accessToken)
+                        .username(user.getUsername())
+                        .expirationDate(System.currentTimeMillis() + refreshExpiration)
+                        .build())
+                .map(saved -> {
+                    Map<String, String> response = new HashMap<>();
+                    response.put("accessToken", accessToken);
+                    response.put("refreshToken", refreshToken);
+                    return response;
+                });
+    }
+
+    private Mono<User> findUser(String username) {
+        return userRepository.findByUsername(username)
+                .switchIfEmpty(Mono.error(() -> new NotFoundException("User not found")));
+    }
+
+    private static <T> Mono<T> offload(Callable<T> callable) {
+        return Mono.fromCallable(callable).subscribeOn(Schedulers.boundedElastic());
+    }
+}
@@ -1,62 +1,183 @@
 package com.hepsiemlak.todo.util;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import com.hepsiemlak.todo.exception.UnauthorizedException;
+import com.hepsiemlak.todo.model.user.TokenClaims;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.LocatorAdapter;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.PostConstruct;
+import javax.crypto.SecretKey;
+import java.security.Key;
 import java.util.Date;
-import java.util.function.Function;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 @Component
 public class JwtUtil {
 
+    private static final String DEFAULT_KEY_ID = "default";
+
     @Value("${jwt.secret}")
     private String secret;
 
+    @Value("${jwt.keys:}")
+    private String keys;
+
+    @Value("${jwt.active-key-id:" + DEFAULT_KEY_ID + "}")
+    private String activeKeyId;
+
     @Value("${jwt.expiration}")
     private Long expiration;
 
+    @Value("${jwt.claims-cache.maximum-size:10000}")
+    private Long claimsCacheMaximumSize;
+
+    private Cache<String, TokenClaims> claimsCache;
+
+    private volatile SigningKeys signingKeys;
+
+    private JwtParser parser;
+
+    @PostConstruct
+    public void init() {
+        claimsCache = Caffeine.newBuilder()
+                .maximumSize(claimsCacheMaximumSize)
+                .expireAfter(new TokenExpiry())
+                .build();
+
+        Map<String, String> secrets = parseKeys();
+        if (!secrets.containsKey(activeKeyId)) {
+            throw new IllegalStateException("jwt.active-key-id " + activeKeyId + " is not one of the configured key ids "
+                    + secrets.keySet());
+        }
+        signingKeys = new SigningKeys(secrets, activeKeyId);
+
+        parser = Jwts.parser()
+                .keyLocator(new LocatorAdapter<Key>() {
+                    @Override
+                    protected Key locate(JwsHeader header) {
+                        return signingKeys.getKey(header.getKeyId());
+                    }
+                })
+                .build();
+    }
+
+    /**
+     * The {@code jwt.secret} under the default id plus every {@code id:secret} entry of
+     * {@code jwt.keys}. An entry is named by its position and id only, so that a secret never
+     * ends up in the startup failure.
+     */
+    private Map<String, String> parseKeys() {
+        Map<String, String> secrets = new HashMap<>();
+        secrets.put(DEFAULT_KEY_ID, secret);
+        if (keys.isBlank()) {
+            return secrets;
+        }
+
+        String[] entries = keys.split(",", -1);
+        for (int i = 0; i < entries.length; i++) {
+            String[] keyIdAndSecret = entries[i].trim().split(":", 2);
+            if (keyIdAndSecret.length != 2) {
+                throw new IllegalStateException("jwt.keys entry " + (i + 1) + " is not of the form id:secret");
+            }
+            String keyId = keyIdAndSecret[0].trim();
+            if (keyId.isEmpty()) {
+                throw new IllegalStateException("jwt.keys entry " + (i + 1) + " has an empty key id");
+            }
+            if (keyIdAndSecret[1].isBlank()) {
+                throw new IllegalStateException("jwt.keys entry " + (i + 1) + " (" + keyId + ") has an empty secret");
+            }
+            secrets.put(keyId, keyIdAndSecret[1].trim());
+        }
+        return secrets;
+    }
+
+    /**
+     * Replaces the signing keys at runtime. Tokens signed with a key that is no longer
+     * present are rejected, so previously verified claims are dropped as well.
+     */
+    public void rotateKeys(Map<String, String> secrets, String activeKeyId) {
+        signingKeys = new SigningKeys(secrets, activeKeyId);
+        claimsCache.invalidateAll();
+    }
+
     public String generateToken(String username, Long lastModifiedDate) {
+        SigningKeys current = signingKeys;
         return Jwts.builder()
+                .header().keyId(current.getActiveKeyId()).and()
                 .claim("lastModifiedDate", lastModifiedDate)
                 .subject(username)
                 .issuedAt(new Date(System.currentTimeMillis()))
                 .expiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(Keys.hmacShaKeyFor(Decoders.BASE64.decode(secret)))
+                .signWith(current.getActiveKey())
                 .compact();
     }
 
     public boolean validateToken(String authorization, String username, Long lastModifiedDate) {
-        String token = extractToken(authorization);
-        return (extractUsernameByToken(token).equals(username) &&
-                !extractClaim(token, Claims::getExpiration).before(new Date()) &&
-                extractLastModification(token) >= lastModifiedDate);
+        return validateClaims(extractClaimsByAuthorization(authorization), username, lastModifiedDate);
+    }
+
+    public boolean validateClaims(TokenClaims claims, String username, Long lastModifiedDate) {
+        return (claims.getSubject().equals(username) &&
+                !claims.isExpired() &&
+                claims.getLastModifiedDate() >= lastModifiedDate);
     }
 
     public String extractUsernameByAuthorization(String authorization) {
-        return extractClaim(extractToken(authorization), Claims::getSubject);
+        return extractClaimsByAuthorization(authorization).getSubject();
     }
 
     public String extractUsernameByToken(String token) {
-        return extractClaim(token, Claims::getSubject);
+        return extractClaimsByToken(token).getSubject();
     }
 
-    private Long extractLastModification(String token) {
-        return extractClaim(token, claims -> claims.get("lastModifiedDate", Long.class));
+    /**
+     * Returns the claims of the bearer token, reusing the ones already verified for the
+     * current request or, failing that, the ones cached for the same token.
+     */
+    public TokenClaims extractClaimsByAuthorization(String authorization) {
+        String token = extractToken(authorization);
+        TokenClaims authenticated = extractAuthenticatedClaims(token);
+        return authenticated != null ? authenticated : extractClaimsByToken(token);
     }
 
-    private <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        Claims claims = Jwts.parser()
-                .verifyWith(Keys.hmacShaKeyFor(Decoders.BASE64.decode(secret)))
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+    public TokenClaims extractClaimsByToken(String token) {
+        return claimsCache.get(HashUtil.sha256(token), key -> parseClaims(token));
+    }
 
-        return claimsResolver.apply(claims);
+    private TokenClaims extractAuthenticatedClaims(String token) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getCredentials() instanceof TokenClaims) {
+            TokenClaims claims = (TokenClaims) authentication.getCredentials();
+            if (claims.getToken().equals(token)) {
+                return claims;
+            }
+        }
+        return null;
+    }
+
+    private TokenClaims parseClaims(String token) {
+        Claims claims = parser.parseSignedClaims(token).getPayload();
+
+        return TokenClaims.builder()
+                .token(token)
+                .subject(claims.getSubject())
+                .expiration(claims.getExpiration().toInstant())
+                .lastModifiedDate(claims.get("lastModifiedDate", Long.class))
+                .build();
     }
 
     private String extractToken(String authorization) {
@@ -66,4 +187,55 @@ public class JwtUtil {
 
         return authorization.substring(7);
     }
-}
\ No newline at end of file
+
+    private static class SigningKeys {
+
+        private final Map<String, SecretKey> keys = new HashMap<>();
+        private final String activeKeyId;
+        private final SecretKey activeKey;
+
+        SigningKeys(Map<String, String> secrets, String activeKeyId) {
+            secrets.forEach((keyId, secret) -> keys.put(keyId, Keys.hmacShaKeyFor(Decoders.BASE64.decode(secret))));
+            if (!keys.containsKey(activeKeyId)) {
+                throw new IllegalArgumentException("Active signing key " + activeKeyId + " is not configured");
+            }
+            this.activeKeyId = activeKeyId;
+            this.activeKey = keys.get(activeKeyId);
+        }
+
+        String getActiveKeyId() {
+            return activeKeyId;
+        }
+
+        SecretKey getActiveKey() {
+            return activeKey;
+        }
+
+        SecretKey getKey(String keyId) {
+            SecretKey key = keys.get(keyId != null ? keyId : DEFAULT_KEY_ID);
+            if (key == null) {
+                throw new UnauthorizedException("Unknown signing key");
+            }
+            return key;
+        }
+    }
+
+    private static class TokenExpiry implements Expiry<String, TokenClaims> {
+
+        @Override
+        public long expireAfterCreate(String key, TokenClaims claims, long currentTime) {
+            long remaining = claims.getExpiration().toEpochMilli() - System.currentTimeMillis();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(remaining, 0));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, TokenClaims claims, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, claims, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, TokenClaims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
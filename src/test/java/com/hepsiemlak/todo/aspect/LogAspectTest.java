@@ -0,0 +1,45 @@
+package com.hepsiemlak.todo.aspect;
+
+import com.hepsiemlak.todo.model.todo.AddTodoRequest;
+import com.hepsiemlak.todo.model.todo.BatchTodoRequest;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LogAspectTest {
+
+    @Test
+    void it_should_summarize_batch_without_rendering_it() {
+        List<AddTodoRequest> create = new ArrayList<>(Collections.nCopies(500,
+                AddTodoRequest.builder().title("title").description("description").build())) {
+            @Override
+            public String toString() {
+                throw new AssertionError("batch was rendered");
+            }
+        };
+
+        String actual = LogAspect.summarize(BatchTodoRequest.builder().create(create).build());
+
+        assertEquals("BatchTodoRequest[create=500, update=0, delete=0]", actual);
+    }
+
+    @Test
+    void it_should_summarize_response_entity_body() {
+        String actual = LogAspect.summarize(ResponseEntity.ok(new ArrayList<>(List.of("a", "b"))));
+
+        assertEquals("ResponseEntity[status=200, body=ArrayList[size=2]]", actual);
+    }
+
+    @Test
+    void it_should_cut_long_values() {
+        String actual = LogAspect.summarize("x".repeat(1000));
+
+        assertTrue(actual.endsWith("...(1000 chars)"));
+        assertTrue(actual.length() < 300);
+    }
+}
@@ -0,0 +1,64 @@
+package com.hepsiemlak.todo.aspect;
+
+import com.hepsiemlak.todo.exception.NotFoundException;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class MetricsAspectTest {
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private MetricsAspect metricsAspect;
+
+    private ProceedingJoinPoint joinPoint;
+
+    @BeforeEach
+    void setUp() throws NoSuchMethodException {
+        meterRegistry = new SimpleMeterRegistry();
+        metricsAspect = new MetricsAspect(meterRegistry);
+
+        MethodSignature signature = mock(MethodSignature.class);
+        when(signature.getMethod()).thenReturn(MetricsAspectTest.class.getDeclaredMethod("setUp"));
+        joinPoint = mock(ProceedingJoinPoint.class);
+        when(joinPoint.getSignature()).thenReturn(signature);
+    }
+
+    @Test
+    void it_should_record_successful_calls() throws Throwable {
+        when(joinPoint.proceed()).thenReturn("result");
+
+        metricsAspect.recordMetrics(joinPoint, null);
+        Object actual = metricsAspect.recordMetrics(joinPoint, null);
+
+        Timer timer = meterRegistry.get(MetricsAspect.TIMER_NAME)
+                .tag("class", "MetricsAspectTest")
+                .tag("method", "setUp")
+                .tag("outcome", "success")
+                .tag("exception", MetricsAspect.NO_EXCEPTION)
+                .timer();
+        assertEquals("result", actual);
+        assertEquals(2, timer.count());
+    }
+
+    @Test
+    void it_should_record_failed_calls_by_exception_type() throws Throwable {
+        when(joinPoint.proceed()).thenThrow(new NotFoundException("Task not found"));
+
+        assertThrows(NotFoundException.class, () -> metricsAspect.recordMetrics(joinPoint, null));
+
+        Timer timer = meterRegistry.get(MetricsAspect.TIMER_NAME)
+                .tag("outcome", "failure")
+                .tag("exception", "NotFoundException")
+                .timer();
+        assertEquals(1, timer.count());
+        assertNull(meterRegistry.find(MetricsAspect.TIMER_NAME).tag("outcome", "success").timer());
+    }
+}
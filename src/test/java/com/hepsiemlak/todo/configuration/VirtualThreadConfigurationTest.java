@@ -0,0 +1,74 @@
+package com.hepsiemlak.todo.configuration;
+
+import org.apache.coyote.ProtocolHandler;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIf;
+import org.mockito.ArgumentCaptor;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Checks the Tomcat customizer the profile contributes. Throughput under load is measured with
+ * the load test run on the virtual-threads profile, not here.
+ */
+class VirtualThreadConfigurationTest {
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withUserConfiguration(VirtualThreadConfiguration.class);
+
+    @Test
+    void it_should_leave_tomcat_alone_without_the_profile() {
+        contextRunner.run(context -> assertTrue(context.getBeansOfType(TomcatProtocolHandlerCustomizer.class).isEmpty()));
+    }
+
+    @Test
+    @EnabledIf("virtualThreadsAvailable")
+    @SuppressWarnings("unchecked")
+    void it_should_run_tomcat_requests_on_virtual_threads() {
+        contextRunner.withPropertyValues("spring.profiles.active=virtual-threads").run(context -> {
+            TomcatProtocolHandlerCustomizer<ProtocolHandler> customizer = context.getBean(TomcatProtocolHandlerCustomizer.class);
+            ProtocolHandler protocolHandler = mock(ProtocolHandler.class);
+
+            customizer.customize(protocolHandler);
+
+            ArgumentCaptor<Executor> executor = ArgumentCaptor.forClass(Executor.class);
+            verify(protocolHandler).setExecutor(executor.capture());
+            CompletableFuture<Thread> thread = CompletableFuture.supplyAsync(Thread::currentThread, executor.getValue());
+            assertEquals(true, Thread.class.getMethod("isVirtual").invoke(thread.get()));
+        });
+    }
+
+    @Test
+    @EnabledIf("virtualThreadsUnavailable")
+    void it_should_fail_startup_when_virtual_threads_are_unavailable() {
+        contextRunner.withPropertyValues("spring.profiles.active=virtual-threads").run(context -> {
+            Throwable failure = context.getStartupFailure();
+            assertNotNull(failure);
+            while (failure != null && !(failure instanceof IllegalStateException)) {
+                failure = failure.getCause();
+            }
+            assertNotNull(failure, "startup did not fail on the missing executor");
+        });
+    }
+
+    @Test
+    @EnabledIf("virtualThreadsUnavailable")
+    void it_should_throw_illegal_state_exception_when_virtual_threads_are_unavailable() {
+        assertThrows(IllegalStateException.class, VirtualThreadConfiguration::newVirtualThreadExecutor);
+    }
+
+    static boolean virtualThreadsAvailable() {
+        return Runtime.version().feature() >= 21;
+    }
+
+    static boolean virtualThreadsUnavailable() {
+        return !virtualThreadsAvailable();
+    }
+}
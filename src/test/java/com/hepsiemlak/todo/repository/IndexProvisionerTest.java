@@ -0,0 +1,169 @@
+package com.hepsiemlak.todo.repository;
+
+import com.couchbase.client.java.Cluster;
+import com.couchbase.client.java.json.JsonObject;
+import com.couchbase.client.java.manager.query.QueryIndex;
+import com.couchbase.client.java.manager.query.QueryIndexManager;
+import com.couchbase.client.java.query.QueryOptions;
+import com.couchbase.client.java.query.QueryResult;
+import com.hepsiemlak.todo.entity.AccountDeletionJob;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.data.couchbase.CouchbaseClientFactory;
+import org.springframework.data.couchbase.core.CouchbaseTemplate;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class IndexProvisionerTest {
+
+    private static final Duration BUILD_TIMEOUT = Duration.ofMinutes(1);
+
+    private static final Map<String, Object> INDEX_SCAN = Map.of("#operator", "Sequence",
+            "~children", List.of(Map.of("#operator", "IndexScan3", "index", "idx_todo_username_created_or_zero")));
+
+    private static final Map<String, Object> PRIMARY_SCAN = Map.of("#operator", "Sequence",
+            "~children", List.of(Map.of("#operator", "PrimaryScan3", "index", "#primary")));
+
+    @Mock
+    private CouchbaseTemplate userTemplate;
+
+    @Mock
+    private CouchbaseTemplate todoTemplate;
+
+    @Mock
+    private CouchbaseTemplate tokenTemplate;
+
+    @Mock
+    private CouchbaseClientFactory clientFactory;
+
+    @Mock
+    private Cluster cluster;
+
+    @Mock
+    private QueryIndexManager queryIndexManager;
+
+    @Mock
+    private QueryResult explainResult;
+
+    @Mock
+    private JsonObject explainRow;
+
+    @Mock
+    private JsonObject plan;
+
+    @BeforeEach
+    void setUp() {
+        when(userTemplate.getBucketName()).thenReturn("users");
+        when(todoTemplate.getBucketName()).thenReturn("todos");
+        when(tokenTemplate.getBucketName()).thenReturn("tokens");
+        for (CouchbaseTemplate template : List.of(userTemplate, todoTemplate, tokenTemplate)) {
+            when(template.getCouchbaseClientFactory()).thenReturn(clientFactory);
+        }
+        when(clientFactory.getCluster()).thenReturn(cluster);
+        when(cluster.queryIndexes()).thenReturn(queryIndexManager);
+        when(queryIndexManager.getAllIndexes(any())).thenReturn(Collections.emptyList());
+
+        when(cluster.query(startsWith("EXPLAIN "), any(QueryOptions.class))).thenReturn(explainResult);
+        when(explainResult.rowsAsObject()).thenReturn(List.of(explainRow));
+        when(explainRow.getObject("plan")).thenReturn(plan);
+        when(plan.toMap()).thenReturn(INDEX_SCAN);
+    }
+
+    @Test
+    void it_should_create_missing_indexes_and_wait_until_they_are_online() {
+        QueryIndex existing = mock(QueryIndex.class);
+        when(existing.name()).thenReturn("idx_todo_username_created_or_zero");
+        when(queryIndexManager.getAllIndexes("todos")).thenReturn(List.of(existing));
+
+        provisioner(true, true).provision();
+
+        verify(cluster, never()).query(startsWith("CREATE INDEX `idx_todo_username_created_or_zero`"));
+        verify(cluster, times(1)).query(startsWith("CREATE INDEX `idx_token_expiration` ON `tokens`"));
+        verify(cluster, times(1)).query(startsWith("CREATE INDEX `idx_token_username_expiration` ON `tokens`"));
+        verify(cluster, times(1)).query(startsWith("CREATE INDEX `idx_account_deletion_job_status` ON `users`"));
+        verify(queryIndexManager, never()).buildDeferredIndexes("todos");
+        verify(queryIndexManager, times(1)).buildDeferredIndexes("tokens");
+        verify(queryIndexManager, times(1)).buildDeferredIndexes("users");
+        verify(queryIndexManager, times(1)).watchIndexes("todos", List.of("idx_todo_username_created_or_zero"), BUILD_TIMEOUT);
+        verify(queryIndexManager, times(1))
+                .watchIndexes("tokens", List.of("idx_token_expiration", "idx_token_username_expiration"), BUILD_TIMEOUT);
+    }
+
+    @Test
+    void it_should_explain_queries_without_creating_indexes_when_provisioning_is_disabled() {
+        provisioner(false, true).provision();
+
+        verify(cluster, never()).queryIndexes();
+        verify(cluster, never()).query(startsWith("CREATE INDEX"));
+        verify(cluster, atLeastOnce()).query(startsWith("EXPLAIN SELECT"), any(QueryOptions.class));
+        verify(cluster, times(1)).query(startsWith("EXPLAIN DELETE FROM `todos`"), any(QueryOptions.class));
+    }
+
+    @Test
+    void it_should_explain_the_statements_the_repositories_run() {
+        provisioner(false, true).provision();
+
+        verify(cluster, times(1)).query(eq("EXPLAIN SELECT META(`todos`).id AS __id, META(`todos`).cas AS __cas, `todos`.* " +
+                "FROM `todos` WHERE `_class` = \"com.hepsiemlak.todo.entity.Todo\" AND username = $1"), any(QueryOptions.class));
+        verify(cluster, times(1)).query(eq("EXPLAIN " + IndexProvisioner.entityStatement(
+                AccountDeletionJobRepository.FIND_BY_STATUS_IN, "users", AccountDeletionJob.class)), any(QueryOptions.class));
+        verify(cluster, times(1)).query(eq("EXPLAIN " + String.format(TodoRepositoryCustomImpl.COUNT_BY_USERNAME, "todos")),
+                any(QueryOptions.class));
+    }
+
+    @Test
+    void it_should_explain_every_filter_and_sort_of_the_projected_listing() {
+        provisioner(false, true).provision();
+
+        verify(cluster, times(2)).query(contains("AND t.completed = $completed"), any(QueryOptions.class));
+        verify(cluster, times(2)).query(contains("AND t.title LIKE $titlePrefix"), any(QueryOptions.class));
+        verify(cluster, times(2)).query(contains("AND CONTAINS(LOWER(t.title), $titleContains)"), any(QueryOptions.class));
+        verify(cluster, times(1)).query(contains("ORDER BY t.title ASC, META(t).id"), any(QueryOptions.class));
+        verify(cluster, times(1)).query(contains("ORDER BY t.completed DESC, META(t).id"), any(QueryOptions.class));
+        verify(cluster, times(1)).query(startsWith("EXPLAIN SELECT META(t).id AS id, t.title FROM `todos` t"), any(QueryOptions.class));
+    }
+
+    @Test
+    void it_should_fail_when_a_query_would_use_a_primary_scan() {
+        when(plan.toMap()).thenReturn(PRIMARY_SCAN);
+
+        IndexProvisioner provisioner = provisioner(false, true);
+
+        IllegalStateException exception = assertThrows(IllegalStateException.class, provisioner::provision);
+        assertTrue(exception.getMessage().contains("TokenRepository.findExpiredIds"));
+    }
+
+    @Test
+    void it_should_only_warn_about_primary_scans_when_configured() {
+        when(plan.toMap()).thenReturn(PRIMARY_SCAN);
+
+        assertDoesNotThrow(() -> provisioner(false, false).provision());
+    }
+
+    @Test
+    void it_should_find_primary_scans_nested_in_the_plan() {
+        assertTrue(IndexProvisioner.usesPrimaryScan(PRIMARY_SCAN));
+        assertFalse(IndexProvisioner.usesPrimaryScan(INDEX_SCAN));
+    }
+
+    private IndexProvisioner provisioner(boolean provision, boolean failOnPrimaryScan) {
+        return new IndexProvisioner(userTemplate, todoTemplate, tokenTemplate, provision, BUILD_TIMEOUT, failOnPrimaryScan);
+    }
+}
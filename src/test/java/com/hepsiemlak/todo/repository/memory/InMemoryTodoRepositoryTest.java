@@ -0,0 +1,161 @@
+package com.hepsiemlak.todo.repository.memory;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hepsiemlak.todo.entity.Todo;
+import com.hepsiemlak.todo.model.todo.TodoFilter;
+import com.hepsiemlak.todo.model.todo.TodoResponse;
+import com.hepsiemlak.todo.service.TodoRules;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InMemoryTodoRepositoryTest {
+
+    private InMemoryTodoRepository todoRepository;
+
+    @BeforeEach
+    void setUp() {
+        todoRepository = new InMemoryTodoRepository();
+    }
+
+    @Test
+    void it_should_page_todos_of_user_only() {
+        save("alice", "a", 1L);
+        save("alice", "b", 2L);
+        save("alice", "c", 3L);
+        save("bob", "d", 4L);
+
+        List<Todo> page = todoRepository.findByUsername("alice", PageRequest.of(1, 2));
+
+        assertEquals(3, todoRepository.countByUsername("alice"));
+        assertEquals(List.of("c"), titles(page));
+    }
+
+    @Test
+    void it_should_continue_slice_after_cursor() {
+        save("alice", "a", 1L);
+        save("alice", "b", 1L);
+        save("alice", "c", 2L);
+        Todo first = todoRepository.findFirstSliceByUsername("alice", 1).get(0);
+
+        List<Todo> slice = todoRepository.findSliceByUsernameAfter("alice", first.getCreatedDate(), first.getId(), 10);
+
+        assertEquals(2, slice.size());
+        assertFalse(slice.stream().anyMatch(todo -> todo.getId().equals(first.getId())));
+        assertEquals("c", slice.get(1).getTitle());
+    }
+
+    @Test
+    void it_should_page_by_cursor_past_todos_without_created_date() {
+        save("alice", "a", null);
+        save("alice", "b", null);
+        save("alice", "c", null);
+        save("alice", "d", 5L);
+
+        List<Todo> seen = new ArrayList<>(todoRepository.findFirstSliceByUsername("alice", 1));
+        while (seen.size() < 5) {
+            String[] cursor = TodoRules.decodeCursor(TodoRules.encodeCursor(seen.get(seen.size() - 1)));
+            List<Todo> slice = todoRepository.findSliceByUsernameAfter("alice", Long.parseLong(cursor[0]), cursor[1], 1);
+            if (slice.isEmpty()) {
+                break;
+            }
+            seen.addAll(slice);
+        }
+
+        assertEquals(4, seen.size());
+        assertEquals("d", seen.get(3).getTitle());
+    }
+
+    @Test
+    void it_should_not_share_state_with_callers() {
+        Todo todo = save("alice", "a", 1L);
+
+        todo.setTitle("changed");
+
+        assertEquals("a", todoRepository.findById(todo.getId()).orElseThrow().getTitle());
+    }
+
+    @Test
+    void it_should_move_todo_in_index_when_created_date_changes() {
+        Todo todo = save("alice", "a", 5L);
+        save("alice", "b", 3L);
+
+        todo.setCreatedDate(1L);
+        todoRepository.save(todo);
+
+        assertEquals(List.of("a", "b"), titles(todoRepository.findFirstSliceByUsername("alice", 10)));
+    }
+
+    @Test
+    void it_should_filter_sort_and_project_todos() {
+        save("alice", "Buy milk", 1L);
+        save("alice", "buy bread", 2L);
+        save("alice", "Walk", 3L);
+
+        TodoFilter filter = TodoFilter.builder().titleContains("BUY").fields(List.of("title")).build();
+        List<TodoResponse> page = todoRepository.findProjectedByUsername("alice", filter,
+                PageRequest.of(0, 10, Sort.by(Sort.Direction.DESC, "createdDate")));
+
+        assertEquals(2, todoRepository.countProjectedByUsername("alice", filter));
+        assertEquals("buy bread", page.get(0).getTitle());
+        assertNull(page.get(0).getId());
+    }
+
+    @Test
+    void it_should_omit_only_unselected_fields_from_json() throws Exception {
+        Todo todo = save("alice", "a", 1L);
+        ObjectMapper objectMapper = new ObjectMapper();
+
+        TodoResponse projected = todoRepository.findProjectedByUsername("alice",
+                TodoFilter.builder().fields(List.of("title")).build(), PageRequest.of(0, 10)).get(0);
+        TodoResponse full = TodoResponse.builder().id(todo.getId()).title("a").build();
+
+        assertEquals("{\"title\":\"a\"}", objectMapper.writeValueAsString(projected));
+        assertTrue(objectMapper.writeValueAsString(full).contains("\"description\":null"));
+    }
+
+    @Test
+    void it_should_delete_oldest_todos_in_chunks() {
+        save("alice", "a", 1L);
+        save("alice", "b", 2L);
+        save("alice", "c", 10L);
+
+        assertEquals(1, todoRepository.deleteChunkByUsername("alice", 5L, 1));
+        assertEquals(1, todoRepository.deleteChunkByUsername("alice", 5L, 1));
+        assertEquals(0, todoRepository.deleteChunkByUsername("alice", 5L, 1));
+        assertEquals(List.of("c"), titles(todoRepository.findFirstSliceByUsername("alice", 10)));
+    }
+
+    @Test
+    void it_should_replace_only_todos_at_the_expected_version() {
+        Todo current = save("alice", "a", 1L);
+        Todo stale = current.toBuilder().title("stale").build();
+        todoRepository.save(current.toBuilder().title("b").build());
+
+        Map<String, Throwable> failures = todoRepository.replaceAll(List.of(stale));
+
+        assertInstanceOf(OptimisticLockingFailureException.class, failures.get(current.getId()));
+        assertEquals("b", todoRepository.findById(current.getId()).orElseThrow().getTitle());
+    }
+
+    private Todo save(String username, String title, Long createdDate) {
+        return todoRepository.save(Todo.builder()
+                .username(username)
+                .title(title)
+                .createdDate(createdDate)
+                .build());
+    }
+
+    private static List<String> titles(List<Todo> todos) {
+        return todos.stream().map(Todo::getTitle).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,96 @@
+package com.hepsiemlak.todo.repository.memory;
+
+import com.hepsiemlak.todo.entity.Token;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InMemoryTokenRepositoryTest {
+
+    private InMemoryTokenRepository tokenRepository;
+
+    @BeforeEach
+    void setUp() {
+        tokenRepository = new InMemoryTokenRepository();
+    }
+
+    @Test
+    void it_should_reject_duplicate_insert() {
+        tokenRepository.insert(token("a", "alice", System.currentTimeMillis() + 60000));
+
+        assertThrows(DuplicateKeyException.class,
+                () -> tokenRepository.insert(token("a", "alice", System.currentTimeMillis() + 60000)));
+    }
+
+    @Test
+    void it_should_reject_replace_with_stale_version() {
+        tokenRepository.insert(token("a", "alice", System.currentTimeMillis() + 60000));
+        Token first = tokenRepository.findById("a").orElseThrow();
+        Token second = tokenRepository.findById("a").orElseThrow();
+
+        first.setConsumed(true);
+        tokenRepository.replace(first);
+        second.setConsumed(true);
+
+        assertThrows(OptimisticLockingFailureException.class, () -> tokenRepository.replace(second));
+    }
+
+    @Test
+    void it_should_find_expired_and_excess_tokens() {
+        long now = System.currentTimeMillis();
+        tokenRepository.insert(token("expired", "alice", now - 1000));
+        tokenRepository.insert(token("old", "alice", now + 1000));
+        tokenRepository.insert(token("new", "alice", now + 2000));
+
+        assertEquals(List.of("expired"), tokenRepository.findExpiredIds(now, 10));
+        assertEquals(List.of("old"), tokenRepository.findExcessIds(1, now, "alice", "alice"));
+    }
+
+    @Test
+    void it_should_page_through_users_with_tokens() {
+        long now = System.currentTimeMillis();
+        tokenRepository.insert(token("a1", "alice", now + 1000));
+        tokenRepository.insert(token("a2", "alice", now + 2000));
+        tokenRepository.insert(token("b1", "bob", now + 1000));
+        tokenRepository.insert(token("b2", "bob", now + 2000));
+        tokenRepository.insert(token("c1", "carol", now - 1000));
+        tokenRepository.insert(token("d1", "dave", now + 1000));
+        tokenRepository.insert(token("d2", "dave", now + 2000));
+
+        assertEquals(List.of("alice", "bob"), tokenRepository.findUsernamesWithTokens("", now, 2));
+        assertEquals(List.of("dave"), tokenRepository.findUsernamesWithTokens("bob", now, 2));
+        assertEquals(List.of("a1", "b1"), tokenRepository.findExcessIds(1, now, "alice", "bob").stream()
+                .sorted()
+                .collect(Collectors.toList()));
+    }
+
+    @Test
+    void it_should_not_report_missing_tokens_as_failures() {
+        tokenRepository.insert(token("a", "alice", System.currentTimeMillis() - 1000));
+
+        assertTrue(tokenRepository.removeAllById(List.of("a", "missing"), 4).isEmpty());
+        assertFalse(tokenRepository.existsById("a"));
+    }
+
+    @Test
+    void it_should_describe_the_token_entity() {
+        Token token = token("a", "alice", System.currentTimeMillis() + 60000);
+
+        assertEquals(Token.class, tokenRepository.getEntityInformation().getJavaType());
+        assertEquals("a", tokenRepository.getEntityInformation().getId(token));
+    }
+
+    private static Token token(String id, String username, long expirationDate) {
+        return Token.builder()
+                .id(id)
+                .username(username)
+                .expirationDate(expirationDate)
+                .build();
+    }
+}
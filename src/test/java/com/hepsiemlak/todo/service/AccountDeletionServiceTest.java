@@ -0,0 +1,207 @@
+package com.hepsiemlak.todo.service;
+
+import com.hepsiemlak.todo.entity.AccountDeletionJob;
+import com.hepsiemlak.todo.exception.NotFoundException;
+import com.hepsiemlak.todo.mapping.UserMapper;
+import com.hepsiemlak.todo.model.user.AccountDeletionJobResponse;
+import com.hepsiemlak.todo.repository.AccountDeletionJobRepository;
+import com.hepsiemlak.todo.repository.TodoRepository;
+import com.hepsiemlak.todo.repository.UserRepository;
+import net.datafaker.Faker;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AccountDeletionServiceTest {
+
+    private static final Faker faker = new Faker();
+
+    private static final int CHUNK_SIZE = 2;
+
+    private AccountDeletionService accountDeletionService;
+
+    @Mock
+    private AccountDeletionJobRepository jobRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private TodoRepository todoRepository;
+
+    @Mock
+    private TodoCache todoCache;
+
+    @Mock
+    private TodoCounters todoCounters;
+
+    @Mock
+    private UserDetailsCustomService userDetailsCustomService;
+
+    @Mock
+    private UserMapper userMapper;
+
+    @BeforeEach
+    void setUp() {
+        accountDeletionService = new AccountDeletionService(jobRepository, userRepository, todoRepository, todoCache,
+                todoCounters, userDetailsCustomService, userMapper, 1, CHUNK_SIZE,
+                Duration.ofMinutes(5), Duration.ofSeconds(30), Duration.ofHours(1));
+    }
+
+    @AfterEach
+    void tearDown() {
+        accountDeletionService.shutdown();
+    }
+
+    @Test
+    void it_should_submit_job_and_delete_user() {
+        String username = faker.name().username();
+
+        when(jobRepository.save(any(AccountDeletionJob.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        String jobId = accountDeletionService.submit(username);
+
+        verify(jobRepository, atLeastOnce()).save(argThat(job -> AccountDeletionJob.idOf(jobId).equals(job.getId())
+                && username.equals(job.getUsername())));
+        verify(userRepository, times(1)).deleteByUsername(username);
+        verify(userDetailsCustomService, times(1)).evictUser(username);
+    }
+
+    @Test
+    void it_should_delete_todos_in_chunks() {
+        AccountDeletionJob job = job(AccountDeletionJob.Status.PENDING, 0L);
+        when(jobRepository.save(job)).thenReturn(job);
+
+        when(todoRepository.deleteChunkByUsername(job.getUsername(), job.getCreatedDate(), CHUNK_SIZE))
+                .thenReturn(2L, 1L, 0L);
+
+        accountDeletionService.run(job);
+
+        verify(todoRepository, times(3)).deleteChunkByUsername(job.getUsername(), job.getCreatedDate(), CHUNK_SIZE);
+        verify(todoCache, times(1)).evictUser(job.getUsername());
+        verify(todoCounters, times(1)).delete(job.getUsername());
+        assertEquals(AccountDeletionJob.Status.COMPLETED, job.getStatus());
+        assertEquals(3L, job.getDeletedTodos());
+    }
+
+    @Test
+    void it_should_continue_counting_when_resuming_job() {
+        AccountDeletionJob job = job(AccountDeletionJob.Status.RUNNING, 5L);
+        when(jobRepository.save(job)).thenReturn(job);
+
+        when(todoRepository.deleteChunkByUsername(job.getUsername(), job.getCreatedDate(), CHUNK_SIZE))
+                .thenReturn(1L, 0L);
+
+        accountDeletionService.run(job);
+
+        assertEquals(AccountDeletionJob.Status.COMPLETED, job.getStatus());
+        assertEquals(6L, job.getDeletedTodos());
+    }
+
+    @Test
+    void it_should_mark_job_failed_when_chunk_fails() {
+        AccountDeletionJob job = job(AccountDeletionJob.Status.PENDING, 0L);
+        when(jobRepository.save(job)).thenReturn(job);
+
+        when(todoRepository.deleteChunkByUsername(job.getUsername(), job.getCreatedDate(), CHUNK_SIZE))
+                .thenThrow(new IllegalStateException("Query failed"));
+
+        accountDeletionService.run(job);
+
+        assertEquals(AccountDeletionJob.Status.FAILED, job.getStatus());
+        assertEquals("Query failed", job.getMessage());
+        assertEquals(1, job.getAttempts());
+        assertTrue(job.getNextAttemptDate() >= System.currentTimeMillis() + Duration.ofSeconds(25).toMillis());
+    }
+
+    @Test
+    void it_should_double_retry_backoff_with_every_failed_attempt() {
+        AccountDeletionJob job = job(AccountDeletionJob.Status.FAILED, 0L);
+        job.setAttempts(3);
+        when(jobRepository.save(job)).thenReturn(job);
+
+        when(todoRepository.deleteChunkByUsername(job.getUsername(), job.getCreatedDate(), CHUNK_SIZE))
+                .thenThrow(new IllegalStateException("Query failed"));
+
+        accountDeletionService.run(job);
+
+        assertEquals(4, job.getAttempts());
+        assertTrue(job.getNextAttemptDate() >= System.currentTimeMillis() + Duration.ofMinutes(3).toMillis());
+    }
+
+    @Test
+    void it_should_leave_job_to_node_that_claimed_it() {
+        AccountDeletionJob job = job(AccountDeletionJob.Status.PENDING, 0L);
+
+        when(jobRepository.save(job)).thenThrow(new OptimisticLockingFailureException("CAS mismatch"));
+
+        accountDeletionService.run(job);
+
+        verifyNoInteractions(todoRepository);
+    }
+
+    @Test
+    void it_should_resume_failed_jobs_that_are_due_and_abandoned_running_jobs() {
+        AccountDeletionJob failed = job(AccountDeletionJob.Status.FAILED, 0L);
+        failed.setNextAttemptDate(System.currentTimeMillis() - 1);
+        AccountDeletionJob abandoned = job(AccountDeletionJob.Status.RUNNING, 0L);
+        abandoned.setLeaseExpirationDate(System.currentTimeMillis() - 1);
+        AccountDeletionJob backingOff = job(AccountDeletionJob.Status.FAILED, 0L);
+        backingOff.setNextAttemptDate(System.currentTimeMillis() + 60_000);
+        AccountDeletionJob held = job(AccountDeletionJob.Status.RUNNING, 0L);
+        held.setLeaseExpirationDate(System.currentTimeMillis() + 60_000);
+
+        when(jobRepository.findByStatusIn(anyCollection())).thenReturn(List.of(failed, abandoned, backingOff, held));
+        when(jobRepository.save(any(AccountDeletionJob.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        accountDeletionService.resumeJobs();
+
+        verify(todoRepository, timeout(1000)).deleteChunkByUsername(eq(failed.getUsername()), anyLong(), anyInt());
+        verify(todoRepository, timeout(1000)).deleteChunkByUsername(eq(abandoned.getUsername()), anyLong(), anyInt());
+        verify(todoRepository, never()).deleteChunkByUsername(eq(backingOff.getUsername()), anyLong(), anyInt());
+        verify(todoRepository, never()).deleteChunkByUsername(eq(held.getUsername()), anyLong(), anyInt());
+    }
+
+    @Test
+    void it_should_get_job() {
+        AccountDeletionJob job = job(AccountDeletionJob.Status.RUNNING, 1L);
+        AccountDeletionJobResponse response = AccountDeletionJobResponse.builder().id(job.getJobId()).build();
+
+        when(jobRepository.findById(job.getId())).thenReturn(Optional.of(job));
+        when(userMapper.toResponse(job)).thenReturn(response);
+
+        assertEquals(response, accountDeletionService.getJob(job.getJobId()));
+    }
+
+    @Test
+    void it_should_throw_not_found_exception_when_getting_job() {
+        String jobId = faker.internet().uuid();
+
+        when(jobRepository.findById(AccountDeletionJob.idOf(jobId))).thenReturn(Optional.empty());
+
+        NotFoundException exception = assertThrows(NotFoundException.class, () -> accountDeletionService.getJob(jobId));
+        assertEquals("Job not found", exception.getMessage());
+    }
+
+    private static AccountDeletionJob job(AccountDeletionJob.Status status, long deletedTodos) {
+        return AccountDeletionJob.builder()
+                .id(AccountDeletionJob.idOf(faker.internet().uuid()))
+                .username(faker.name().username())
+                .status(status)
+                .deletedTodos(deletedTodos)
+                .createdDate(System.currentTimeMillis())
+                .build();
+    }
+}
@@ -0,0 +1,93 @@
+package com.hepsiemlak.todo.service;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.hepsiemlak.todo.entity.Todo;
+import com.hepsiemlak.todo.repository.TodoRepository;
+import net.datafaker.Faker;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TodoCacheTest {
+
+    private static final Faker faker = new Faker();
+
+    @Mock
+    private TodoRepository todoRepository;
+
+    @Mock
+    private TodoInvalidationBus todoInvalidationBus;
+
+    private TodoCache todoCache;
+
+    @BeforeEach
+    void setUp() {
+        todoCache = new TodoCache(Caffeine.newBuilder().maximumSize(100).build(), todoRepository, todoInvalidationBus);
+        todoCache.init();
+    }
+
+    @Test
+    void it_should_read_through_once() {
+        Todo todo = todo(1L);
+        when(todoRepository.findById(todo.getId())).thenReturn(Optional.of(todo));
+
+        todoCache.findById(todo.getId());
+        Todo actual = todoCache.findById(todo.getId()).orElseThrow();
+
+        verify(todoRepository, times(1)).findById(todo.getId());
+        verify(todoInvalidationBus, times(1)).subscribe(todoCache);
+        assertEquals(todo.getTitle(), actual.getTitle());
+    }
+
+    @Test
+    void it_should_not_share_cached_todo_with_callers() {
+        Todo todo = todo(1L);
+        when(todoRepository.findById(todo.getId())).thenReturn(Optional.of(todo));
+
+        todoCache.findById(todo.getId()).orElseThrow().setTitle("changed");
+
+        assertEquals(todo.getTitle(), todoCache.findById(todo.getId()).orElseThrow().getTitle());
+    }
+
+    @Test
+    void it_should_keep_newer_version_on_put() {
+        Todo newer = todo(2L);
+        Todo older = newer.toBuilder().version(1L).title("stale").build();
+
+        todoCache.put(newer);
+        todoCache.put(older);
+
+        assertEquals(newer.getTitle(), todoCache.findById(newer.getId()).orElseThrow().getTitle());
+        verify(todoInvalidationBus, times(2)).publish(newer.getId());
+        verifyNoInteractions(todoRepository);
+    }
+
+    @Test
+    void it_should_evict_todos_of_user() {
+        Todo todo = todo(1L);
+        todoCache.put(todo);
+        when(todoRepository.findById(todo.getId())).thenReturn(Optional.empty());
+
+        todoCache.evictUser(todo.getUsername());
+
+        assertTrue(todoCache.findById(todo.getId()).isEmpty());
+        verify(todoInvalidationBus, times(1)).publishUser(todo.getUsername());
+    }
+
+    private static Todo todo(Long version) {
+        return Todo.builder()
+                .id(faker.internet().uuid())
+                .title(faker.name().name())
+                .username(faker.name().username())
+                .version(version)
+                .build();
+    }
+}
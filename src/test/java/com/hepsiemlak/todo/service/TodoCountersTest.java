@@ -0,0 +1,188 @@
+package com.hepsiemlak.todo.service;
+
+import com.hepsiemlak.todo.model.todo.TodoStatsResponse;
+import com.hepsiemlak.todo.repository.TodoCounterRepository;
+import com.hepsiemlak.todo.repository.TodoRepository;
+import com.hepsiemlak.todo.repository.memory.InMemoryTodoCounterRepository;
+import net.datafaker.Faker;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TodoCountersTest {
+
+    private static final Faker faker = new Faker();
+
+    @InjectMocks
+    private TodoCounters todoCounters;
+
+    @Mock
+    private TodoCounterRepository todoCounterRepository;
+
+    @Mock
+    private TodoRepository todoRepository;
+
+    @Test
+    void it_should_read_counts_from_counters() {
+        String username = faker.name().username();
+        TodoStatsResponse stats = TodoStatsResponse.builder().total(5).completed(2).open(3).build();
+
+        when(todoCounterRepository.findByUsername(username)).thenReturn(Optional.of(stats));
+
+        assertEquals(stats, todoCounters.get(username));
+        verifyNoInteractions(todoRepository);
+    }
+
+    @Test
+    void it_should_seed_missing_counters_from_a_count() {
+        String username = faker.name().username();
+
+        when(todoCounterRepository.findByUsername(username)).thenReturn(Optional.empty());
+        when(todoCounterRepository.findVersionByUsername(username)).thenReturn(Optional.of(7L));
+        when(todoRepository.countByUsername(username)).thenReturn(5L);
+        when(todoRepository.countByUsernameAndCompleted(username, true)).thenReturn(2L);
+        when(todoCounterRepository.seed(username, 5, 2)).thenReturn(true);
+
+        TodoStatsResponse actual = todoCounters.get(username);
+
+        verify(todoCounterRepository, times(1)).seed(username, 5, 2);
+        verify(todoCounterRepository, never()).deleteByUsername(username);
+        assertEquals(TodoStatsResponse.builder().total(5).completed(2).open(3).build(), actual);
+    }
+
+    @Test
+    void it_should_drop_seeded_counters_when_todos_change_while_counting() {
+        String username = faker.name().username();
+
+        when(todoCounterRepository.findByUsername(username)).thenReturn(Optional.empty());
+        when(todoCounterRepository.findVersionByUsername(username)).thenReturn(Optional.of(7L), Optional.of(8L));
+        when(todoRepository.countByUsername(username)).thenReturn(5L);
+        when(todoRepository.countByUsernameAndCompleted(username, true)).thenReturn(2L);
+        when(todoCounterRepository.seed(username, 5, 2)).thenReturn(true);
+
+        TodoStatsResponse actual = todoCounters.get(username);
+
+        verify(todoCounterRepository, times(1)).deleteByUsername(username);
+        assertEquals(5, actual.getTotal());
+    }
+
+    @Test
+    void it_should_drop_seeded_counters_while_a_write_is_in_flight() {
+        String username = faker.name().username();
+
+        when(todoCounterRepository.findByUsername(username)).thenReturn(Optional.empty());
+        when(todoCounterRepository.findVersionByUsername(username)).thenReturn(Optional.of(7L));
+        when(todoRepository.countByUsername(username)).thenReturn(5L);
+        when(todoRepository.countByUsernameAndCompleted(username, true)).thenReturn(2L);
+        when(todoCounterRepository.seed(username, 5, 2)).thenReturn(true);
+        when(todoCounterRepository.hasWritesInFlight(username)).thenReturn(true);
+
+        todoCounters.get(username);
+
+        verify(todoCounterRepository, times(1)).deleteByUsername(username);
+    }
+
+    @Test
+    void it_should_not_count_a_write_saved_before_the_seed_and_recorded_after_it_twice() {
+        String username = faker.name().username();
+        TodoCounters counters = new TodoCounters(new InMemoryTodoCounterRepository(), todoRepository);
+
+        when(todoRepository.countByUsername(username)).thenReturn(6L);
+        when(todoRepository.countByUsernameAndCompleted(username, true)).thenReturn(0L);
+
+        // The write starts and saves its todo, which the seed then counts, and is recorded last.
+        counters.start(username);
+        counters.get(username);
+        counters.add(username, 1, 0);
+
+        assertEquals(6, counters.get(username).getTotal());
+    }
+
+    @Test
+    void it_should_keep_counters_seeded_by_another_reader() {
+        String username = faker.name().username();
+
+        when(todoCounterRepository.findByUsername(username)).thenReturn(Optional.empty());
+        when(todoCounterRepository.findVersionByUsername(username)).thenReturn(Optional.of(7L));
+        when(todoRepository.countByUsername(username)).thenReturn(5L);
+        when(todoRepository.countByUsernameAndCompleted(username, true)).thenReturn(2L);
+        when(todoCounterRepository.seed(username, 5, 2)).thenReturn(false);
+
+        todoCounters.get(username);
+
+        verify(todoCounterRepository, times(1)).findVersionByUsername(username);
+        verify(todoCounterRepository, never()).deleteByUsername(username);
+    }
+
+    @Test
+    void it_should_record_writes_without_count_changes() {
+        String username = faker.name().username();
+
+        todoCounters.add(username, 0, 0);
+
+        verify(todoCounterRepository, times(1)).increment(username, 0, 0);
+    }
+
+    @Test
+    void it_should_read_version_from_counter() {
+        String username = faker.name().username();
+
+        when(todoCounterRepository.findVersionByUsername(username)).thenReturn(Optional.of(42L));
+
+        assertEquals(42L, todoCounters.version(username));
+        verify(todoCounterRepository, never()).seedVersion(anyString(), anyLong());
+    }
+
+    @Test
+    void it_should_seed_missing_version_from_the_clock() {
+        String username = faker.name().username();
+        long before = System.currentTimeMillis();
+
+        when(todoCounterRepository.findVersionByUsername(username)).thenReturn(Optional.empty());
+
+        long version = todoCounters.version(username);
+
+        assertTrue(version >= before);
+        verify(todoCounterRepository, times(1)).seedVersion(username, version);
+    }
+
+    @Test
+    void it_should_not_tag_listings_while_a_write_is_in_flight() {
+        String username = faker.name().username();
+
+        when(todoCounterRepository.hasWritesInFlight(username)).thenReturn(true);
+
+        assertTrue(todoCounters.settledVersion(username).isEmpty());
+        verify(todoCounterRepository, never()).findVersionByUsername(anyString());
+    }
+
+    @Test
+    void it_should_drop_counters_when_a_write_cannot_be_marked() {
+        String username = faker.name().username();
+
+        doThrow(new RuntimeException("timeout")).when(todoCounterRepository).startWrite(username);
+
+        todoCounters.start(username);
+
+        verify(todoCounterRepository, times(1)).deleteByUsername(username);
+    }
+
+    @Test
+    void it_should_drop_counters_when_update_fails() {
+        String username = faker.name().username();
+
+        doThrow(new RuntimeException("timeout")).when(todoCounterRepository).increment(username, 1, 0);
+
+        todoCounters.add(username, 1, 0);
+
+        verify(todoCounterRepository, times(1)).deleteByUsername(username);
+    }
+}
@@ -1,34 +1,43 @@
 package com.hepsiemlak.todo.service;
 
 import com.hepsiemlak.todo.entity.Todo;
-import com.hepsiemlak.todo.entity.User;
+import com.hepsiemlak.todo.exception.BadRequestException;
+import com.hepsiemlak.todo.exception.ConflictException;
 import com.hepsiemlak.todo.exception.NotFoundException;
+import com.hepsiemlak.todo.exception.PreconditionFailedException;
 import com.hepsiemlak.todo.mapping.TodoMapper;
+import com.hepsiemlak.todo.model.SliceResponse;
 import com.hepsiemlak.todo.model.todo.AddTodoRequest;
+import com.hepsiemlak.todo.model.todo.BatchTodoRequest;
+import com.hepsiemlak.todo.model.todo.BatchTodoResponse;
+import com.hepsiemlak.todo.model.todo.BatchUpdateTodoRequest;
+import com.hepsiemlak.todo.model.todo.TodoFilter;
 import com.hepsiemlak.todo.model.todo.TodoResponse;
+import com.hepsiemlak.todo.model.todo.TodoStatsResponse;
 import com.hepsiemlak.todo.model.todo.UpdateTodoRequest;
 import com.hepsiemlak.todo.repository.TodoRepository;
-import com.hepsiemlak.todo.repository.UserRepository;
 import com.hepsiemlak.todo.util.JwtUtil;
 import net.datafaker.Faker;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.util.ReflectionTestUtils;
 
-import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
-import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -39,9 +48,6 @@ class TodoServiceTest {
     @InjectMocks
     private TodoService todoService;
 
-    @Mock
-    private UserRepository userRepository;
-
     @Mock
     private TodoRepository todoRepository;
 
@@ -51,6 +57,12 @@ class TodoServiceTest {
     @Mock
     private JwtUtil jwtUtil;
 
+    @Mock
+    private TodoCache todoCache;
+
+    @Mock
+    private TodoCounters todoCounters;
+
 
     @Test
     void it_should_create_todo() {
@@ -62,43 +74,36 @@ class TodoServiceTest {
                 .description(faker.name().name())
                 .build();
 
-        User user = User.builder()
-                .tasks(new ArrayList<>())
-                .build();
-
-        Todo todo = Todo.builder().build();
-        Todo savedTodo = Todo.builder().id(faker.name().name()).build();
-
-        user.getTasks().add(savedTodo.getId());
+        Todo todo = Todo.builder().username(username).build();
+        Todo savedTodo = Todo.builder().id(faker.name().name()).username(username).build();
 
         when(jwtUtil.extractUsernameByAuthorization(authorization)).thenReturn(username);
-        when(userRepository.findByUsername(username)).thenReturn(Optional.of(user));
         when(todoMapper.toEntity(request, username)).thenReturn(todo);
         when(todoRepository.save(todo)).thenReturn(savedTodo);
-        when(userRepository.save(user)).thenReturn(user);
 
         todoService.createTodo(authorization, request);
-        verify(userRepository, times(1)).save(user);
+        InOrder inOrder = inOrder(todoCounters, todoRepository);
+        inOrder.verify(todoCounters).start(username);
+        inOrder.verify(todoRepository).save(todo);
+        inOrder.verify(todoCounters).add(username, 1, 0);
     }
 
     @Test
-    void it_should_throw_not_found_exception_when_creating_todo() {
+    void it_should_finish_the_write_when_create_fails() {
         String authorization = faker.name().name();
         String username = faker.name().username();
 
-        AddTodoRequest request = AddTodoRequest.builder()
-                .title(faker.name().name())
-                .description(faker.name().name())
-                .build();
+        AddTodoRequest request = AddTodoRequest.builder().title(faker.name().name()).build();
+        Todo todo = Todo.builder().username(username).build();
 
         when(jwtUtil.extractUsernameByAuthorization(authorization)).thenReturn(username);
-        when(userRepository.findByUsername(username)).thenReturn(Optional.empty());
-
-        NotFoundException exception = assertThrows(NotFoundException.class,
-                () -> todoService.createTodo(authorization, request));
+        when(todoMapper.toEntity(request, username)).thenReturn(todo);
+        when(todoRepository.save(todo)).thenThrow(new RuntimeException("timeout"));
 
-        verify(userRepository, never()).save(any());
-        assertEquals("User not found", exception.getMessage());
+        assertThrows(RuntimeException.class, () -> todoService.createTodo(authorization, request));
+        verify(todoCounters, times(1)).start(username);
+        verify(todoCounters, times(1)).finish(username);
+        verify(todoCounters, never()).add(anyString(), anyLong(), anyLong());
     }
 
     @Test
@@ -124,6 +129,181 @@ class TodoServiceTest {
 
         todoService.updateTodo(authorization, id, request);
         verify(todoRepository, times(1)).save(todo);
+        verify(todoCache, times(1)).put(todo);
+        verify(todoCounters, times(1)).add(username, 0, 0);
+    }
+
+    @Test
+    void it_should_count_todo_as_completed_when_update_completes_it() {
+        String id = faker.name().name();
+        String authorization = faker.name().name();
+        String username = faker.name().username();
+
+        UpdateTodoRequest request = UpdateTodoRequest.builder().completed(true).build();
+        Todo todo = Todo.builder().id(id).username(username).build();
+
+        when(jwtUtil.extractUsernameByAuthorization(authorization)).thenReturn(username);
+        when(todoRepository.findById(id)).thenReturn(Optional.of(todo));
+        when(todoMapper.toEntity(request, todo)).thenAnswer(invocation -> {
+            todo.setCompleted(true);
+            return todo;
+        });
+        when(todoRepository.save(todo)).thenReturn(todo);
+
+        todoService.updateTodo(authorization, id, request);
+        verify(todoCounters, times(1)).add(username, 0, 1);
+    }
+
+    @Test
+    void it_should_throw_conflict_exception_when_todo_changed_during_update() {
+        String id = faker.name().name();
+        String authorization = faker.name().name();
+        String username = faker.name().username();
+
+        UpdateTodoRequest request = UpdateTodoRequest.builder().completed(true).build();
+        Todo todo = Todo.builder().id(id).username(username).version(1L).build();
+
+        when(jwtUtil.extractUsernameByAuthorization(authorization)).thenReturn(username);
+        when(todoRepository.findById(id)).thenReturn(Optional.of(todo));
+        when(todoMapper.toEntity(request, todo)).thenReturn(todo);
+        when(todoRepository.save(todo)).thenThrow(new OptimisticLockingFailureException("CAS mismatch"));
+
+        ConflictException exception = assertThrows(ConflictException.class,
+                () -> todoService.updateTodo(authorization, id, request));
+
+        verify(todoCache, times(1)).evict(id);
+        assertEquals(TodoRules.TASK_MODIFIED, exception.getMessage());
+    }
+
+    @Test
+    void it_should_retry_completed_update_when_todo_changed_during_update() {
+        String id = faker.name().name();
+        String authorization = faker.name().name();
+        String username = faker.name().username();
+        ReflectionTestUtils.setField(todoService, "updateMaxRetries", 3);
+
+        UpdateTodoRequest request = UpdateTodoRequest.builder().completed(true).build();
+        Todo stale = Todo.builder().id(id).username(username).version(1L).build();
+        Todo latest = Todo.builder().id(id).username(username).version(2L).build();
+
+        when(jwtUtil.extractUsernameByAuthorization(authorization)).thenReturn(username);
+        when(todoRepository.findById(id)).thenReturn(Optional.of(stale), Optional.of(latest));
+        when(todoMapper.toEntity(request, stale)).thenReturn(stale);
+        when(todoMapper.toEntity(request, latest)).thenReturn(latest);
+        when(todoRepository.save(stale)).thenThrow(new OptimisticLockingFailureException("CAS mismatch"));
+        when(todoRepository.save(latest)).thenReturn(latest);
+
+        todoService.updateTodo(authorization, id, request);
+
+        verify(todoRepository, times(2)).findById(id);
+        verify(todoCache, times(1)).put(latest);
+    }
+
+    @Test
+    void it_should_not_retry_text_update_when_todo_changed_during_update() {
+        String id = faker.name().name();
+        String authorization = faker.name().name();
+        String username = faker.name().username();
+        ReflectionTestUtils.setField(todoService, "updateMaxRetries", 3);
+
+        UpdateTodoRequest request = UpdateTodoRequest.builder().title(faker.name().name()).build();
+        Todo todo = Todo.builder().id(id).username(username).version(1L).build();
+
+        when(jwtUtil.extractUsernameByAuthorization(authorization)).thenReturn(username);
+        when(todoRepository.findById(id)).thenReturn(Optional.of(todo));
+        when(todoMapper.toEntity(request, todo)).thenReturn(todo);
+        when(todoRepository.save(todo)).thenThrow(new OptimisticLockingFailureException("CAS mismatch"));
+
+        assertThrows(ConflictException.class, () -> todoService.updateTodo(authorization, id, request));
+
+        verify(todoRepository, times(1)).save(todo);
+    }
+
+    @Test
+    void it_should_update_todo_from_cache_when_if_match_matches() {
+        String id = faker.name().name();
+        String authorization = faker.name().name();
+        String username = faker.name().username();
+
+        UpdateTodoRequest request = UpdateTodoRequest.builder().title(faker.name().name()).build();
+        Todo todo = Todo.builder().id(id).username(username).version(3L).build();
+        Todo saved = Todo.builder().id(id).username(username).version(4L).build();
+        TodoResponse response = TodoResponse.builder().id(id).version(4L).build();
+
+        when(jwtUtil.extractUsernameByAuthorization(authorization)).thenReturn(username);
+        when(todoCache.findById(id)).thenReturn(Optional.of(todo));
+        when(todoMapper.toEntity(request, todo)).thenReturn(todo);
+        when(todoRepository.save(todo)).thenReturn(saved);
+        when(todoMapper.toResponse(saved)).thenReturn(response);
+
+        TodoResponse actual = todoService.updateTodo(authorization, id, request, "\"3\"");
+
+        assertEquals(response, actual);
+        verify(todoRepository, never()).findById(any());
+        verify(todoCache, times(1)).put(saved);
+    }
+
+    @Test
+    void it_should_check_if_match_against_database_when_cached_todo_is_behind() {
+        String id = faker.name().name();
+        String authorization = faker.name().name();
+        String username = faker.name().username();
+
+        UpdateTodoRequest request = UpdateTodoRequest.builder().title(faker.name().name()).build();
+        Todo cached = Todo.builder().id(id).username(username).version(2L).build();
+        Todo todo = Todo.builder().id(id).username(username).version(3L).build();
+
+        when(jwtUtil.extractUsernameByAuthorization(authorization)).thenReturn(username);
+        when(todoCache.findById(id)).thenReturn(Optional.of(cached));
+        when(todoRepository.findById(id)).thenReturn(Optional.of(todo));
+        when(todoMapper.toEntity(request, todo)).thenReturn(todo);
+        when(todoRepository.save(todo)).thenReturn(todo);
+
+        todoService.updateTodo(authorization, id, request, "\"3\"");
+
+        verify(todoRepository, times(1)).save(todo);
+    }
+
+    @Test
+    void it_should_throw_precondition_failed_exception_when_if_match_does_not_match() {
+        String id = faker.name().name();
+        String authorization = faker.name().name();
+        String username = faker.name().username();
+
+        UpdateTodoRequest request = UpdateTodoRequest.builder().completed(true).build();
+        Todo todo = Todo.builder().id(id).username(username).version(3L).build();
+
+        when(jwtUtil.extractUsernameByAuthorization(authorization)).thenReturn(username);
+        when(todoCache.findById(id)).thenReturn(Optional.of(todo));
+        when(todoRepository.findById(id)).thenReturn(Optional.of(todo));
+
+        PreconditionFailedException exception = assertThrows(PreconditionFailedException.class,
+                () -> todoService.updateTodo(authorization, id, request, "W/\"3\", \"2\""));
+
+        verify(todoRepository, never()).save(any());
+        assertEquals(TodoRules.TASK_VERSION_MISMATCH, exception.getMessage());
+    }
+
+    @Test
+    void it_should_throw_precondition_failed_exception_when_todo_changed_after_if_match_check() {
+        String id = faker.name().name();
+        String authorization = faker.name().name();
+        String username = faker.name().username();
+        ReflectionTestUtils.setField(todoService, "updateMaxRetries", 3);
+
+        UpdateTodoRequest request = UpdateTodoRequest.builder().completed(true).build();
+        Todo todo = Todo.builder().id(id).username(username).version(3L).build();
+
+        when(jwtUtil.extractUsernameByAuthorization(authorization)).thenReturn(username);
+        when(todoCache.findById(id)).thenReturn(Optional.of(todo));
+        when(todoMapper.toEntity(request, todo)).thenReturn(todo);
+        when(todoRepository.save(todo)).thenThrow(new OptimisticLockingFailureException("CAS mismatch"));
+
+        assertThrows(PreconditionFailedException.class,
+                () -> todoService.updateTodo(authorization, id, request, "\"3\""));
+
+        verify(todoRepository, times(1)).save(todo);
+        verify(todoCache, times(1)).evict(id);
     }
 
     @Test
@@ -158,34 +338,34 @@ class TodoServiceTest {
         String authorization = faker.name().name();
         String username = faker.name().username();
 
-        List<String> todoIds = new ArrayList<>();
-        todoIds.add(id);
-
-        User user = User.builder().tasks(todoIds).username(username).build();
+        Todo todo = Todo.builder().id(id).username(username).build();
 
         when(jwtUtil.extractUsernameByAuthorization(authorization)).thenReturn(username);
-        when(userRepository.findByUsername(username)).thenReturn(Optional.of(user));
-        when(userRepository.save(user)).thenReturn(user);
+        when(todoCache.findById(id)).thenReturn(Optional.of(todo));
         doNothing().when(todoRepository).deleteById(id);
 
         todoService.deleteTodo(authorization, id);
         verify(todoRepository, times(1)).deleteById(id);
+        verify(todoCache, times(1)).evict(id);
+        verify(todoCounters, times(1)).add(username, -1, 0);
     }
 
     @Test
-    void it_should_throw_user_not_found_exception_when_deleting_todo() {
+    void it_should_throw_task_not_found_exception_when_deleting_todo_of_another_user() {
         String id = faker.name().name();
         String authorization = faker.name().name();
         String username = faker.name().username();
 
+        Todo todo = Todo.builder().id(id).username(faker.name().name()).build();
+
         when(jwtUtil.extractUsernameByAuthorization(authorization)).thenReturn(username);
-        when(userRepository.findByUsername(username)).thenReturn(Optional.empty());
+        when(todoCache.findById(id)).thenReturn(Optional.of(todo));
 
         NotFoundException exception = assertThrows(NotFoundException.class,
                 () -> todoService.deleteTodo(authorization, id));
 
         verify(todoRepository, never()).deleteById(id);
-        assertEquals("User not found", exception.getMessage());
+        assertEquals("Task not found", exception.getMessage());
     }
 
     @Test
@@ -194,10 +374,8 @@ class TodoServiceTest {
         String authorization = faker.name().name();
         String username = faker.name().username();
 
-        User user = User.builder().tasks(new ArrayList<>()).username(username).build();
-
         when(jwtUtil.extractUsernameByAuthorization(authorization)).thenReturn(username);
-        when(userRepository.findByUsername(username)).thenReturn(Optional.of(user));
+        when(todoCache.findById(id)).thenReturn(Optional.empty());
 
         NotFoundException exception = assertThrows(NotFoundException.class,
                 () -> todoService.deleteTodo(authorization, id));
@@ -212,14 +390,10 @@ class TodoServiceTest {
         String authorization = faker.name().name();
         String username = faker.name().username();
 
-        List<String> todoIds = new ArrayList<>();
-        todoIds.add(id);
-
-        User user = User.builder().tasks(todoIds).username(username).build();
+        Todo todo = Todo.builder().id(id).username(username).build();
 
         when(jwtUtil.extractUsernameByAuthorization(authorization)).thenReturn(username);
-        when(userRepository.findByUsername(username)).thenReturn(Optional.of(user));
-        when(userRepository.save(user)).thenReturn(user);
+        when(todoCache.findById(id)).thenReturn(Optional.of(todo));
         doThrow(EmptyResultDataAccessException.class).when(todoRepository).deleteById(id);
 
         NotFoundException exception = assertThrows(NotFoundException.class,
@@ -239,7 +413,7 @@ class TodoServiceTest {
         TodoResponse todoResponse = TodoResponse.builder().id(id).build();
 
         when(jwtUtil.extractUsernameByAuthorization(authorization)).thenReturn(username);
-        when(todoRepository.findById(id)).thenReturn(Optional.of(todo));
+        when(todoCache.findById(id)).thenReturn(Optional.of(todo));
         when(todoMapper.toResponse(todo)).thenReturn(todoResponse);
 
         TodoResponse actual = todoService.getTodoById(authorization, id);
@@ -256,7 +430,7 @@ class TodoServiceTest {
         Todo todo = Todo.builder().id(id).username(faker.name().name()).build();
 
         when(jwtUtil.extractUsernameByAuthorization(authorization)).thenReturn(username);
-        when(todoRepository.findById(id)).thenReturn(Optional.of(todo));
+        when(todoCache.findById(id)).thenReturn(Optional.of(todo));
 
         NotFoundException exception = assertThrows(NotFoundException.class,
                 () -> todoService.getTodoById(authorization, id));
@@ -271,20 +445,249 @@ class TodoServiceTest {
         String authorization = faker.name().name();
         String username = faker.name().username();
         int page = faker.number().numberBetween(0, 10);
-        int size = faker.number().numberBetween(0, 20);
+        int size = faker.number().numberBetween(1, 20);
 
         Todo todo = Todo.builder().id(id).username(username).build();
-        Page<Todo> todoPage = new PageImpl<>(Collections.singletonList(todo), PageRequest.of(page, size), 1);
         TodoResponse todoResponse = TodoResponse.builder().build();
         Pageable pageable = PageRequest.of(page, size);
 
         when(jwtUtil.extractUsernameByAuthorization(authorization)).thenReturn(username);
-        when(todoRepository.findByUsername(username, pageable)).thenReturn(todoPage);
-        when(todoMapper.toPageResponse(todoPage)).thenReturn(new PageImpl<>(Collections.singletonList(todoResponse)));
+        when(todoRepository.findByUsername(username, pageable)).thenReturn(Collections.singletonList(todo));
+        when(todoCounters.get(username)).thenReturn(TodoStatsResponse.builder().total(1000).build());
+        when(todoMapper.toPageResponse(any())).thenAnswer(invocation -> invocation.<Page<Todo>>getArgument(0).map(t -> todoResponse));
 
         Page<TodoResponse> actual = todoService.getTodos(authorization, page, size);
-        verify(todoMapper, times(1)).toPageResponse(todoPage);
-        assertEquals(1, actual.getTotalElements());
+        verify(todoRepository, never()).countByUsername(username);
+        assertEquals(1000, actual.getTotalElements());
+        assertEquals(List.of(todoResponse), actual.getContent());
+    }
+
+    @Test
+    void it_should_get_todos_version() {
+        String authorization = faker.name().name();
+        String username = faker.name().username();
+
+        when(jwtUtil.extractUsernameByAuthorization(authorization)).thenReturn(username);
+        when(todoCounters.settledVersion(username)).thenReturn(Optional.of(42L));
+
+        assertEquals(Optional.of(42L), todoService.getTodosVersion(authorization));
+        verifyNoInteractions(todoRepository);
+    }
+
+    @Test
+    void it_should_get_stats() {
+        String authorization = faker.name().name();
+        String username = faker.name().username();
+        TodoStatsResponse stats = TodoStatsResponse.builder().total(3).completed(1).open(2).build();
+
+        when(jwtUtil.extractUsernameByAuthorization(authorization)).thenReturn(username);
+        when(todoCounters.get(username)).thenReturn(stats);
+
+        assertEquals(stats, todoService.getStats(authorization));
     }
 
+    @Test
+    void it_should_batch_todos() {
+        String authorization = faker.name().name();
+        String username = faker.name().username();
+
+        AddTodoRequest addRequest = AddTodoRequest.builder().title(faker.name().name()).build();
+        Todo owned = Todo.builder().id(faker.name().name()).username(username).build();
+        Todo foreign = Todo.builder().id(faker.name().name()).username(faker.name().name()).build();
+        Todo removed = Todo.builder().id(faker.name().name()).username(username).build();
+
+        BatchUpdateTodoRequest ownedUpdate = BatchUpdateTodoRequest.builder().id(owned.getId()).completed(true).build();
+        BatchUpdateTodoRequest foreignUpdate = BatchUpdateTodoRequest.builder().id(foreign.getId()).completed(true).build();
+
+        BatchTodoRequest request = BatchTodoRequest.builder()
+                .create(List.of(addRequest))
+                .update(List.of(ownedUpdate, foreignUpdate))
+                .delete(List.of(removed.getId()))
+                .build();
+
+        when(jwtUtil.extractUsernameByAuthorization(authorization)).thenReturn(username);
+        when(todoMapper.toEntity(addRequest, username)).thenReturn(Todo.builder().username(username).build());
+        when(todoRepository.findAllById(anyIterable())).thenReturn(List.of(owned, foreign, removed));
+        when(todoMapper.toEntity(ownedUpdate, owned)).thenAnswer(invocation -> {
+            owned.setCompleted(true);
+            return owned;
+        });
+        when(todoRepository.insertAll(anyCollection())).thenReturn(Collections.emptyMap());
+        when(todoRepository.replaceAll(List.of(owned))).thenReturn(Collections.emptyMap());
+        when(todoRepository.removeAllById(List.of(removed.getId())))
+                .thenReturn(Map.of(removed.getId(), new RuntimeException("timeout")));
+
+        BatchTodoResponse actual = todoService.batchTodos(authorization, request);
+
+        verify(jwtUtil, times(1)).extractUsernameByAuthorization(authorization);
+        verify(todoRepository, times(1)).findAllById(anyIterable());
+        verify(todoMapper, never()).toEntity(foreignUpdate, foreign);
+        assertEquals(201, actual.getCreate().get(0).getStatus());
+        assertEquals(200, actual.getUpdate().get(0).getStatus());
+        assertEquals(404, actual.getUpdate().get(1).getStatus());
+        assertEquals(500, actual.getDelete().get(0).getStatus());
+        assertEquals("timeout", actual.getDelete().get(0).getMessage());
+        verify(todoCounters, times(1)).add(username, 1, 1);
+    }
+
+    @Test
+    void it_should_report_batch_updates_that_lost_the_version_check() {
+        String authorization = faker.name().name();
+        String username = faker.name().username();
+
+        Todo changed = Todo.builder().id(faker.name().name()).username(username).version(3L).build();
+        Todo conditional = Todo.builder().id(faker.name().name()).username(username).version(5L).build();
+        Todo stale = Todo.builder().id(faker.name().name()).username(username).version(7L).build();
+
+        BatchUpdateTodoRequest changedUpdate = BatchUpdateTodoRequest.builder().id(changed.getId()).completed(true).build();
+        BatchUpdateTodoRequest conditionalUpdate = BatchUpdateTodoRequest.builder()
+                .id(conditional.getId()).completed(true).ifMatch("\"5\"").build();
+        BatchUpdateTodoRequest staleUpdate = BatchUpdateTodoRequest.builder()
+                .id(stale.getId()).completed(true).ifMatch("\"6\"").build();
+
+        BatchTodoRequest request = BatchTodoRequest.builder()
+                .update(List.of(changedUpdate, conditionalUpdate, staleUpdate))
+                .build();
+
+        when(jwtUtil.extractUsernameByAuthorization(authorization)).thenReturn(username);
+        when(todoRepository.findAllById(anyIterable())).thenReturn(List.of(changed, conditional, stale));
+        when(todoMapper.toEntity(changedUpdate, changed)).thenReturn(changed);
+        when(todoMapper.toEntity(conditionalUpdate, conditional)).thenReturn(conditional);
+        when(todoRepository.replaceAll(List.of(changed, conditional))).thenReturn(Map.of(
+                changed.getId(), new OptimisticLockingFailureException("CAS mismatch"),
+                conditional.getId(), new OptimisticLockingFailureException("CAS mismatch")));
+
+        BatchTodoResponse actual = todoService.batchTodos(authorization, request);
+
+        verify(todoMapper, never()).toEntity(staleUpdate, stale);
+        verify(todoRepository, never()).insertAll(anyCollection());
+        assertEquals(409, actual.getUpdate().get(0).getStatus());
+        assertEquals(412, actual.getUpdate().get(1).getStatus());
+        assertEquals(412, actual.getUpdate().get(2).getStatus());
+        verify(todoCounters, times(1)).add(username, 0, 0);
+    }
+
+    @Test
+    void it_should_throw_bad_request_exception_when_batch_deletes_an_id_twice() {
+        String authorization = faker.name().name();
+        String id = faker.name().name();
+
+        BatchTodoRequest request = BatchTodoRequest.builder().delete(List.of(id, id)).build();
+
+        when(jwtUtil.extractUsernameByAuthorization(authorization)).thenReturn(faker.name().username());
+
+        BadRequestException exception = assertThrows(BadRequestException.class,
+                () -> todoService.batchTodos(authorization, request));
+        assertEquals("Duplicate delete ids [" + id + "]", exception.getMessage());
+        verify(todoRepository, never()).removeAllById(anyCollection());
+        verifyNoInteractions(todoCounters);
+    }
+
+    @Test
+    void it_should_throw_bad_request_exception_when_batch_updates_an_id_twice() {
+        String authorization = faker.name().name();
+        String id = faker.name().name();
+
+        BatchUpdateTodoRequest first = BatchUpdateTodoRequest.builder().id(id).completed(true).build();
+        BatchUpdateTodoRequest second = BatchUpdateTodoRequest.builder().id(id).completed(false).build();
+        BatchTodoRequest request = BatchTodoRequest.builder().update(List.of(first, second)).build();
+
+        when(jwtUtil.extractUsernameByAuthorization(authorization)).thenReturn(faker.name().username());
+
+        BadRequestException exception = assertThrows(BadRequestException.class,
+                () -> todoService.batchTodos(authorization, request));
+        assertEquals("Duplicate update ids [" + id + "]", exception.getMessage());
+        verify(todoRepository, never()).replaceAll(anyCollection());
+        verifyNoInteractions(todoCounters);
+    }
+
+    @Test
+    void it_should_get_filtered_todos() {
+        String authorization = faker.name().name();
+        String username = faker.name().username();
+
+        TodoFilter filter = TodoFilter.builder()
+                .completed(true)
+                .sort("title")
+                .direction(Sort.Direction.DESC)
+                .fields(List.of("id", "title"))
+                .build();
+        Pageable pageable = PageRequest.of(0, 10, Sort.by(Sort.Direction.DESC, "title"));
+
+        when(jwtUtil.extractUsernameByAuthorization(authorization)).thenReturn(username);
+        when(todoRepository.findProjectedByUsername(username, filter, pageable)).thenReturn(List.of(TodoResponse.builder().build()));
+        when(todoCounters.get(username)).thenReturn(TodoStatsResponse.builder().total(30).completed(12).open(18).build());
+
+        Page<TodoResponse> actual = todoService.getTodos(authorization, 0, 10, filter);
+        verify(todoMapper, never()).toPageResponse(any());
+        verify(todoRepository, never()).countProjectedByUsername(any(), any());
+        assertEquals(12, actual.getTotalElements());
+    }
+
+    @Test
+    void it_should_count_todos_filtered_by_title() {
+        String authorization = faker.name().name();
+        String username = faker.name().username();
+
+        TodoFilter filter = TodoFilter.builder().completed(false).titlePrefix("buy").build();
+        Pageable pageable = PageRequest.of(0, 1);
+
+        when(jwtUtil.extractUsernameByAuthorization(authorization)).thenReturn(username);
+        when(todoRepository.findProjectedByUsername(username, filter, pageable)).thenReturn(List.of(TodoResponse.builder().build()));
+        when(todoRepository.countProjectedByUsername(username, filter)).thenReturn(4L);
+
+        Page<TodoResponse> actual = todoService.getTodos(authorization, 0, 1, filter);
+        verifyNoInteractions(todoCounters);
+        assertEquals(4, actual.getTotalElements());
+    }
+
+    @Test
+    void it_should_throw_bad_request_exception_when_filtering_by_unknown_field() {
+        String authorization = faker.name().name();
+
+        TodoFilter filter = TodoFilter.builder().fields(List.of("username")).build();
+
+        when(jwtUtil.extractUsernameByAuthorization(authorization)).thenReturn(faker.name().username());
+
+        assertThrows(BadRequestException.class, () -> todoService.getTodos(authorization, 0, 10, filter));
+        verify(todoRepository, never()).findProjectedByUsername(any(), any(), any());
+    }
+
+    @Test
+    void it_should_get_todos_by_cursor() {
+        String authorization = faker.name().name();
+        String username = faker.name().username();
+
+        Todo first = Todo.builder().id(faker.name().name()).username(username).createdDate(1L).build();
+        Todo second = Todo.builder().id(faker.name().name()).username(username).createdDate(2L).build();
+        Todo third = Todo.builder().id(faker.name().name()).username(username).createdDate(3L).build();
+
+        when(jwtUtil.extractUsernameByAuthorization(authorization)).thenReturn(username);
+        when(todoRepository.findFirstSliceByUsername(username, 3)).thenReturn(List.of(first, second, third));
+        when(todoMapper.toResponse(List.of(first, second))).thenReturn(List.of(TodoResponse.builder().build(), TodoResponse.builder().build()));
+
+        SliceResponse<TodoResponse> actual = todoService.getTodosByCursor(authorization, null, 2);
+        assertTrue(actual.isHasNext());
+        assertEquals(2, actual.getContent().size());
+
+        when(todoRepository.findSliceByUsernameAfter(username, 2L, second.getId(), 3)).thenReturn(List.of(third));
+        when(todoMapper.toResponse(List.of(third))).thenReturn(List.of(TodoResponse.builder().build()));
+
+        SliceResponse<TodoResponse> next = todoService.getTodosByCursor(authorization, actual.getNextCursor(), 2);
+        assertFalse(next.isHasNext());
+        assertNull(next.getNextCursor());
+        assertEquals(1, next.getContent().size());
+    }
+
+    @Test
+    void it_should_throw_bad_request_exception_when_cursor_is_invalid() {
+        String authorization = faker.name().name();
+
+        when(jwtUtil.extractUsernameByAuthorization(authorization)).thenReturn(faker.name().username());
+
+        BadRequestException exception = assertThrows(BadRequestException.class,
+                () -> todoService.getTodosByCursor(authorization, "not-a-cursor", 10));
+
+        assertEquals("Invalid cursor", exception.getMessage());
+    }
 }
\ No newline at end of file
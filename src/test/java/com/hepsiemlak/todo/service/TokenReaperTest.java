@@ -0,0 +1,122 @@
+package com.hepsiemlak.todo.service;
+
+import com.hepsiemlak.todo.repository.TokenRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TokenReaperTest {
+
+    private static final int BATCH_SIZE = 2;
+
+    private static final int MAX_ACTIVE_PER_USER = 3;
+
+    @Mock
+    private TokenRepository tokenRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private TokenReaper tokenReaper;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        tokenReaper = new TokenReaper(tokenRepository, meterRegistry, BATCH_SIZE, 10, 4, 100000, MAX_ACTIVE_PER_USER);
+    }
+
+    @Test
+    void it_should_remove_expired_tokens_in_batches() {
+        when(tokenRepository.findExpiredIds(anyLong(), eq(BATCH_SIZE)))
+                .thenReturn(List.of("a", "b"), List.of("c"));
+        when(tokenRepository.findUsernamesWithTokens(eq(""), anyLong(), eq(BATCH_SIZE)))
+                .thenReturn(Collections.emptyList());
+        when(tokenRepository.removeAllById(anyList(), eq(4))).thenReturn(Collections.emptyMap());
+
+        tokenReaper.reap();
+
+        verify(tokenRepository, times(1)).removeAllById(List.of("a", "b"), 4);
+        verify(tokenRepository, times(1)).removeAllById(List.of("c"), 4);
+        assertEquals(3, meterRegistry.get("token.reaper.scanned").tag("reason", TokenReaper.EXPIRED).counter().count());
+        assertEquals(3, meterRegistry.get("token.reaper.deleted").tag("reason", TokenReaper.EXPIRED).counter().count());
+    }
+
+    @Test
+    void it_should_remove_excess_tokens_of_users() {
+        when(tokenRepository.findExpiredIds(anyLong(), eq(BATCH_SIZE))).thenReturn(Collections.emptyList());
+        when(tokenRepository.findUsernamesWithTokens(eq(""), anyLong(), eq(BATCH_SIZE))).thenReturn(List.of("alice"));
+        when(tokenRepository.findExcessIds(eq(MAX_ACTIVE_PER_USER), anyLong(), eq("alice"), eq("alice"))).thenReturn(List.of("d"));
+        when(tokenRepository.removeAllById(List.of("d"), 4)).thenReturn(Collections.emptyMap());
+
+        tokenReaper.reap();
+
+        assertEquals(1, meterRegistry.get("token.reaper.deleted").tag("reason", TokenReaper.EXCESS).counter().count());
+    }
+
+    @Test
+    void it_should_rank_excess_tokens_one_page_of_users_at_a_time() {
+        when(tokenRepository.findExpiredIds(anyLong(), eq(BATCH_SIZE))).thenReturn(Collections.emptyList());
+        when(tokenRepository.findUsernamesWithTokens(eq(""), anyLong(), eq(BATCH_SIZE))).thenReturn(List.of("alice", "bob"));
+        when(tokenRepository.findUsernamesWithTokens(eq("bob"), anyLong(), eq(BATCH_SIZE))).thenReturn(List.of("carol"));
+        when(tokenRepository.findExcessIds(eq(MAX_ACTIVE_PER_USER), anyLong(), eq("alice"), eq("bob"))).thenReturn(List.of("a", "b"));
+        when(tokenRepository.findExcessIds(eq(MAX_ACTIVE_PER_USER), anyLong(), eq("carol"), eq("carol"))).thenReturn(Collections.emptyList());
+        when(tokenRepository.removeAllById(List.of("a", "b"), 4)).thenReturn(Collections.emptyMap());
+
+        tokenReaper.reap();
+        tokenReaper.reap();
+
+        verify(tokenRepository, times(2)).findUsernamesWithTokens(eq(""), anyLong(), eq(BATCH_SIZE));
+        verify(tokenRepository, times(2)).findExcessIds(eq(MAX_ACTIVE_PER_USER), anyLong(), eq("carol"), eq("carol"));
+        assertEquals(4, meterRegistry.get("token.reaper.deleted").tag("reason", TokenReaper.EXCESS).counter().count());
+    }
+
+    @Test
+    void it_should_continue_from_the_last_page_of_users_on_the_next_run() {
+        tokenReaper = new TokenReaper(tokenRepository, meterRegistry, BATCH_SIZE, 1, 4, 100000, MAX_ACTIVE_PER_USER);
+
+        when(tokenRepository.findExpiredIds(anyLong(), eq(BATCH_SIZE))).thenReturn(Collections.emptyList());
+        when(tokenRepository.findUsernamesWithTokens(eq(""), anyLong(), eq(BATCH_SIZE))).thenReturn(List.of("alice", "bob"));
+        when(tokenRepository.findUsernamesWithTokens(eq("bob"), anyLong(), eq(BATCH_SIZE))).thenReturn(Collections.emptyList());
+        when(tokenRepository.findExcessIds(eq(MAX_ACTIVE_PER_USER), anyLong(), eq("alice"), eq("bob"))).thenReturn(Collections.emptyList());
+
+        tokenReaper.reap();
+        tokenReaper.reap();
+
+        verify(tokenRepository, times(1)).findUsernamesWithTokens(eq(""), anyLong(), eq(BATCH_SIZE));
+        verify(tokenRepository, times(1)).findUsernamesWithTokens(eq("bob"), anyLong(), eq(BATCH_SIZE));
+    }
+
+    @Test
+    void it_should_stop_when_whole_batch_fails() {
+        when(tokenRepository.findExpiredIds(anyLong(), eq(BATCH_SIZE))).thenReturn(List.of("a", "b"));
+        when(tokenRepository.findUsernamesWithTokens(eq(""), anyLong(), eq(BATCH_SIZE)))
+                .thenReturn(Collections.emptyList());
+        when(tokenRepository.removeAllById(List.of("a", "b"), 4)).thenReturn(Map.of(
+                "a", new IllegalStateException("timeout"),
+                "b", new IllegalStateException("timeout")));
+
+        tokenReaper.reap();
+
+        verify(tokenRepository, times(1)).findExpiredIds(anyLong(), eq(BATCH_SIZE));
+        assertEquals(2, meterRegistry.get("token.reaper.failed").tag("reason", TokenReaper.EXPIRED).counter().count());
+        assertEquals(0, meterRegistry.get("token.reaper.deleted").tag("reason", TokenReaper.EXPIRED).counter().count());
+    }
+
+    @Test
+    void it_should_reject_a_delete_rate_below_one() {
+        IllegalStateException exception = assertThrows(IllegalStateException.class,
+                () -> new TokenReaper(tokenRepository, meterRegistry, BATCH_SIZE, 10, 4, 0, MAX_ACTIVE_PER_USER));
+        assertTrue(exception.getMessage().contains("token-reaper.max-deletes-per-second"));
+    }
+}
@@ -1,12 +1,13 @@
 package com.hepsiemlak.todo.service;
 
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.hepsiemlak.todo.entity.User;
 import com.hepsiemlak.todo.exception.NotFoundException;
 import com.hepsiemlak.todo.repository.UserRepository;
 import net.datafaker.Faker;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -22,12 +23,15 @@ class UserDetailsCustomServiceTest {
 
     private static final Faker faker = new Faker();
 
-    @InjectMocks
     private UserDetailsCustomService userDetailsCustomService;
 
     @Mock
     private UserRepository userRepository;
 
+    @BeforeEach
+    void setUp() {
+        userDetailsCustomService = new UserDetailsCustomService(userRepository, Caffeine.newBuilder().build());
+    }
 
     @Test
     void it_should_load_user_by_username() {
@@ -45,6 +49,40 @@ class UserDetailsCustomServiceTest {
         assertEquals(user.getUsername(), actual.getUsername());
     }
 
+    @Test
+    void it_should_load_user_by_username_from_cache() {
+        String username = faker.name().name();
+
+        User user = User.builder()
+                .id(faker.name().name())
+                .username(username)
+                .build();
+
+        when(userRepository.findByUsername(username)).thenReturn(Optional.of(user));
+
+        userDetailsCustomService.loadUserByUsername(username);
+        UserDetails actual = userDetailsCustomService.loadUserByUsername(username);
+        verify(userRepository, times(1)).findByUsername(username);
+        assertEquals(user.getUsername(), actual.getUsername());
+    }
+
+    @Test
+    void it_should_load_user_by_username_again_after_eviction() {
+        String username = faker.name().name();
+
+        User user = User.builder()
+                .id(faker.name().name())
+                .username(username)
+                .build();
+
+        when(userRepository.findByUsername(username)).thenReturn(Optional.of(user));
+
+        userDetailsCustomService.loadUserByUsername(username);
+        userDetailsCustomService.evictUser(username);
+        userDetailsCustomService.loadUserByUsername(username);
+        verify(userRepository, times(2)).findByUsername(username);
+    }
+
     @Test
     void it_should_throw_not_found_exception_when_loading_user_by_username() {
         String username = faker.name().name();
@@ -53,4 +91,4 @@ class UserDetailsCustomServiceTest {
 
         assertThrows(NotFoundException.class, () -> userDetailsCustomService.loadUserByUsername(username));
     }
-}
\ No newline at end of file
+}
@@ -9,7 +9,6 @@ import com.hepsiemlak.todo.mapping.UserMapper;
 import com.hepsiemlak.todo.model.user.PasswordRequest;
 import com.hepsiemlak.todo.model.user.RefreshTokenRequest;
 import com.hepsiemlak.todo.model.user.UserRequest;
-import com.hepsiemlak.todo.repository.TodoRepository;
 import com.hepsiemlak.todo.repository.TokenRepository;
 import com.hepsiemlak.todo.repository.UserRepository;
 import com.hepsiemlak.todo.util.JwtUtil;
@@ -19,10 +18,11 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
 import java.lang.reflect.Field;
-import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
@@ -46,15 +46,18 @@ class UserServiceTest {
     @Mock
     private UserRepository userRepository;
 
-    @Mock
-    private TodoRepository todoRepository;
-
     @Mock
     private PasswordEncoder passwordEncoder;
 
     @Mock
     private TokenRepository tokenRepository;
 
+    @Mock
+    private UserDetailsCustomService userDetailsCustomService;
+
+    @Mock
+    private AccountDeletionService accountDeletionService;
+
     @Test
     void it_should_register_user() {
         UserRequest request = UserRequest.builder()
@@ -94,6 +97,27 @@ class UserServiceTest {
         assertEquals("User already exists", exception.getMessage());
     }
 
+    @Test
+    void it_should_throw_conflict_exception_when_user_registered_concurrently() {
+        UserRequest request = UserRequest.builder()
+                .username(faker.name().name())
+                .password(faker.password().toString())
+                .build();
+
+        User user = User.builder().build();
+
+        when(userRepository.findByUsername(request.getUsername())).thenReturn(Optional.empty());
+        when(userMapper.toEntity(request)).thenReturn(user);
+        when(passwordEncoder.encode(request.getPassword())).thenReturn(faker.password().toString());
+        when(userRepository.save(any(User.class))).thenThrow(DuplicateKeyException.class);
+
+        ConflictException exception = assertThrows(ConflictException.class,
+                () -> userService.registerUser(request));
+
+        assertEquals(User.idOf(request.getUsername()), user.getId());
+        assertEquals("User already exists", exception.getMessage());
+    }
+
     @Test
     void it_should_login_user() throws NoSuchFieldException, IllegalAccessException {
         UserRequest request = UserRequest.builder()
@@ -116,15 +140,49 @@ class UserServiceTest {
         when(userRepository.findByUsername(request.getUsername())).thenReturn(Optional.of(user));
         when(passwordEncoder.matches(request.getPassword(), user.getPassword())).thenReturn(true);
         when(jwtUtil.generateToken(request.getUsername(), user.getLastModifiedDate())).thenReturn(accessToken);
-        when(tokenRepository.save(any(Token.class))).thenReturn(Token.builder().build());
+        when(tokenRepository.insert(any(Token.class))).thenReturn(Token.builder().build());
 
         Map<String, String> actual = userService.loginUser(request);
-        verify(tokenRepository, times(1)).save(any(Token.class));
+        verify(tokenRepository, times(1)).insert(any(Token.class));
         assertEquals(2, actual.size());
         assertNotNull(actual.get("accessToken"));
         assertNotNull(actual.get("refreshToken"));
     }
 
+    @Test
+    void it_should_rehash_outdated_password_when_logging_user() throws NoSuchFieldException, IllegalAccessException {
+        UserRequest request = UserRequest.builder()
+                .username(faker.name().username())
+                .password(faker.password().toString())
+                .build();
+
+        String outdatedPassword = faker.password().toString();
+        String rehashedPassword = faker.password().toString();
+        Long lastModifiedDate = System.currentTimeMillis();
+
+        User user = User.builder()
+                .id(User.idOf(request.getUsername()))
+                .username(request.getUsername())
+                .password(outdatedPassword)
+                .lastModifiedDate(lastModifiedDate)
+                .build();
+
+        Field field = UserService.class.getDeclaredField("refreshExpiration");
+        field.setAccessible(true);
+        field.set(userService, 2592000000L);
+
+        when(userRepository.findByUsername(request.getUsername())).thenReturn(Optional.of(user));
+        when(passwordEncoder.matches(request.getPassword(), outdatedPassword)).thenReturn(true);
+        when(passwordEncoder.upgradeEncoding(outdatedPassword)).thenReturn(true);
+        when(passwordEncoder.encode(request.getPassword())).thenReturn(rehashedPassword);
+        when(jwtUtil.generateToken(request.getUsername(), lastModifiedDate)).thenReturn(faker.password().toString());
+
+        userService.loginUser(request);
+        verify(userRepository, times(1)).save(argThat(saved -> rehashedPassword.equals(saved.getPassword())
+                && lastModifiedDate.equals(saved.getLastModifiedDate())));
+        verify(userDetailsCustomService, times(1)).evictUser(request.getUsername());
+    }
+
     @Test
     void it_should_throw_not_found_exception_when_logging_user() {
         UserRequest request = UserRequest.builder()
@@ -137,7 +195,7 @@ class UserServiceTest {
         NotFoundException exception = assertThrows(NotFoundException.class,
                 () -> userService.loginUser(request));
 
-        verify(tokenRepository, never()).save(any(Token.class));
+        verify(tokenRepository, never()).insert(any(Token.class));
         assertEquals("User not found", exception.getMessage());
     }
 
@@ -160,7 +218,7 @@ class UserServiceTest {
         UnauthorizedException exception = assertThrows(UnauthorizedException.class,
                 () -> userService.loginUser(request));
 
-        verify(tokenRepository, never()).save(any(Token.class));
+        verify(tokenRepository, never()).insert(any(Token.class));
         assertEquals("Bad credentials", exception.getMessage());
     }
 
@@ -192,16 +250,71 @@ class UserServiceTest {
         when(userRepository.findByUsername(token.getUsername())).thenReturn(Optional.of(user));
         when(jwtUtil.extractUsernameByToken(request.getAccessToken())).thenReturn(user.getUsername());
         when(jwtUtil.generateToken(user.getUsername(), user.getLastModifiedDate())).thenReturn(accessToken);
-        when(tokenRepository.save(any(Token.class))).thenReturn(Token.builder().build());
+        when(tokenRepository.insert(any(Token.class))).thenReturn(Token.builder().build());
 
         Map<String, String> actual = userService.refreshToken(request);
 
-        verify(tokenRepository, times(1)).save(any(Token.class));
+        verify(tokenRepository, times(1)).replace(token);
+        verify(tokenRepository, times(1)).insert(argThat(saved -> saved.getId().equals(Token.idOf(actual.get("refreshToken")))));
+        assertTrue(token.getConsumed());
         assertEquals(2, actual.size());
         assertNotNull(actual.get("accessToken"));
         assertNotNull(actual.get("refreshToken"));
     }
 
+    @Test
+    void it_should_throw_unauthorized_exception_when_refresh_token_already_used() {
+        RefreshTokenRequest request = RefreshTokenRequest.builder()
+                .accessToken(faker.idNumber().valid())
+                .refreshToken(faker.idNumber().valid())
+                .build();
+
+        Token token = Token.builder()
+                .username(faker.name().name())
+                .accessToken(request.getAccessToken())
+                .expirationDate(System.currentTimeMillis() + 2592000000L)
+                .consumed(true)
+                .build();
+
+        when(tokenRepository.findByRefreshToken(request.getRefreshToken())).thenReturn(Optional.of(token));
+
+        UnauthorizedException exception = assertThrows(UnauthorizedException.class,
+                () -> userService.refreshToken(request));
+
+        verify(tokenRepository, never()).insert(any(Token.class));
+        assertEquals("Refresh token already used", exception.getMessage());
+    }
+
+    @Test
+    void it_should_throw_unauthorized_exception_when_refresh_token_used_concurrently() {
+        RefreshTokenRequest request = RefreshTokenRequest.builder()
+                .accessToken(faker.idNumber().valid())
+                .refreshToken(faker.idNumber().valid())
+                .build();
+
+        Token token = Token.builder()
+                .username(faker.name().name())
+                .accessToken(request.getAccessToken())
+                .expirationDate(System.currentTimeMillis() + 2592000000L)
+                .build();
+
+        User user = User.builder()
+                .username(token.getUsername())
+                .lastModifiedDate(System.currentTimeMillis())
+                .build();
+
+        when(tokenRepository.findByRefreshToken(request.getRefreshToken())).thenReturn(Optional.of(token));
+        when(userRepository.findByUsername(token.getUsername())).thenReturn(Optional.of(user));
+        when(jwtUtil.extractUsernameByToken(request.getAccessToken())).thenReturn(user.getUsername());
+        when(tokenRepository.replace(token)).thenThrow(new OptimisticLockingFailureException("CAS mismatch"));
+
+        UnauthorizedException exception = assertThrows(UnauthorizedException.class,
+                () -> userService.refreshToken(request));
+
+        verify(tokenRepository, never()).insert(any(Token.class));
+        assertEquals("Refresh token already used", exception.getMessage());
+    }
+
     @Test
     void it_should_throw_refresh_token_not_found_exception_when_refreshing_token() {
         RefreshTokenRequest request = RefreshTokenRequest.builder()
@@ -214,7 +327,7 @@ class UserServiceTest {
         NotFoundException exception = assertThrows(NotFoundException.class,
                 () -> userService.refreshToken(request));
 
-        verify(tokenRepository, never()).save(any(Token.class));
+        verify(tokenRepository, never()).insert(any(Token.class));
         assertEquals("Refresh token not found", exception.getMessage());
     }
 
@@ -236,7 +349,7 @@ class UserServiceTest {
         UnauthorizedException exception = assertThrows(UnauthorizedException.class,
                 () -> userService.refreshToken(request));
 
-        verify(tokenRepository, never()).save(any(Token.class));
+        verify(tokenRepository, never()).insert(any(Token.class));
         assertEquals("Refresh token expired", exception.getMessage());
     }
 
@@ -258,7 +371,7 @@ class UserServiceTest {
         UnauthorizedException exception = assertThrows(UnauthorizedException.class,
                 () -> userService.refreshToken(request));
 
-        verify(tokenRepository, never()).save(any(Token.class));
+        verify(tokenRepository, never()).insert(any(Token.class));
         assertEquals("Access token is not valid", exception.getMessage());
     }
 
@@ -287,7 +400,7 @@ class UserServiceTest {
         NotFoundException exception = assertThrows(NotFoundException.class,
                 () -> userService.refreshToken(request));
 
-        verify(tokenRepository, never()).save(any(Token.class));
+        verify(tokenRepository, never()).insert(any(Token.class));
         assertEquals("User not found", exception.getMessage());
     }
 
@@ -312,6 +425,7 @@ class UserServiceTest {
         userService.changePassword(request);
 
         verify(userRepository, times(1)).save(any(User.class));
+        verify(userDetailsCustomService, times(1)).evictUser(request.getUsername());
     }
 
     @Test
@@ -358,6 +472,7 @@ class UserServiceTest {
     void it_should_delete_user() {
         String authorization = faker.name().name();
         String username = faker.name().name();
+        String jobId = faker.internet().uuid();
 
         PasswordRequest request = PasswordRequest.builder()
                 .oldPassword(faker.password().toString())
@@ -368,17 +483,16 @@ class UserServiceTest {
         User user = User.builder()
                 .username(request.getUsername())
                 .password(request.getOldPassword())
-                .tasks(List.of(faker.name().name()))
                 .build();
 
         when(jwtUtil.extractUsernameByAuthorization(authorization)).thenReturn(username);
         when(userRepository.findByUsername(username)).thenReturn(Optional.of(user));
-        doNothing().when(todoRepository).deleteById(user.getTasks().get(0));
-        doNothing().when(userRepository).deleteByUsername(username);
+        when(accountDeletionService.submit(username)).thenReturn(jobId);
 
-        userService.deleteUser(authorization);
+        String actual = userService.deleteUser(authorization);
 
-        verify(userRepository, times(1)).deleteByUsername(username);
+        verify(accountDeletionService, times(1)).submit(username);
+        assertEquals(jobId, actual);
     }
 
     @Test
@@ -398,7 +512,7 @@ class UserServiceTest {
         NotFoundException exception = assertThrows(NotFoundException.class,
                 () -> userService.deleteUser(authorization));
 
-        verify(userRepository, never()).deleteByUsername(username);
+        verify(accountDeletionService, never()).submit(username);
         assertEquals("User not found", exception.getMessage());
     }
 
@@ -0,0 +1,232 @@
+package com.hepsiemlak.todo.service.reactive;
+
+import com.hepsiemlak.todo.entity.Todo;
+import com.hepsiemlak.todo.exception.BadRequestException;
+import com.hepsiemlak.todo.exception.NotFoundException;
+import com.hepsiemlak.todo.exception.PreconditionFailedException;
+import com.hepsiemlak.todo.mapping.TodoMapper;
+import com.hepsiemlak.todo.model.SliceResponse;
+import com.hepsiemlak.todo.model.todo.AddTodoRequest;
+import com.hepsiemlak.todo.model.todo.TodoFilter;
+import com.hepsiemlak.todo.model.todo.TodoResponse;
+import com.hepsiemlak.todo.model.todo.TodoStatsResponse;
+import com.hepsiemlak.todo.model.todo.UpdateTodoRequest;
+import com.hepsiemlak.todo.repository.reactive.ReactiveTodoRepository;
+import com.hepsiemlak.todo.service.TodoCache;
+import com.hepsiemlak.todo.service.TodoCounters;
+import com.hepsiemlak.todo.service.TodoService;
+import com.hepsiemlak.todo.util.JwtUtil;
+import net.datafaker.Faker;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReactiveTodoServiceTest {
+
+    private static final Faker faker = new Faker();
+
+    @InjectMocks
+    private ReactiveTodoService todoService;
+
+    @Mock
+    private ReactiveTodoRepository todoRepository;
+
+    @Mock
+    private TodoMapper todoMapper;
+
+    @Mock
+    private JwtUtil jwtUtil;
+
+    @Mock
+    private TodoService blockingTodoService;
+
+    @Mock
+    private TodoCounters todoCounters;
+
+    @Mock
+    private TodoCache todoCache;
+
+    @Test
+    void it_should_create_todo() {
+        String authorization = faker.name().name();
+        String username = faker.name().username();
+
+        AddTodoRequest request = AddTodoRequest.builder()
+                .title(faker.name().name())
+                .description(faker.name().name())
+                .build();
+
+        Todo todo = Todo.builder().username(username).build();
+
+        when(jwtUtil.extractUsernameByAuthorization(authorization)).thenReturn(username);
+        when(todoMapper.toEntity(request, username)).thenReturn(todo);
+        when(todoRepository.save(todo)).thenReturn(Mono.just(todo));
+
+        todoService.createTodo(authorization, request).block();
+        verify(todoRepository, times(1)).save(todo);
+        verify(todoCounters, times(1)).add(username, 1, 0);
+        assertNotNull(todo.getCreatedDate());
+    }
+
+    @Test
+    void it_should_throw_not_found_exception_when_getting_todo_of_another_user() {
+        String id = faker.name().name();
+        String authorization = faker.name().name();
+
+        Todo todo = Todo.builder().id(id).username(faker.name().username()).build();
+
+        when(jwtUtil.extractUsernameByAuthorization(authorization)).thenReturn(faker.name().username());
+        when(todoRepository.findById(id)).thenReturn(Mono.just(todo));
+
+        NotFoundException exception = assertThrows(NotFoundException.class,
+                () -> todoService.getTodoById(authorization, id).block());
+        assertEquals("Task not found", exception.getMessage());
+        verify(todoMapper, never()).toResponse(any(Todo.class));
+    }
+
+    @Test
+    void it_should_throw_not_found_exception_when_deleting_missing_todo() {
+        String id = faker.name().name();
+        String authorization = faker.name().name();
+
+        when(jwtUtil.extractUsernameByAuthorization(authorization)).thenReturn(faker.name().username());
+        when(todoRepository.findById(id)).thenReturn(Mono.empty());
+
+        assertThrows(NotFoundException.class, () -> todoService.deleteTodo(authorization, id).block());
+        verify(todoRepository, never()).deleteById(anyString());
+    }
+
+    @Test
+    void it_should_get_todos() {
+        String authorization = faker.name().name();
+        String username = faker.name().username();
+
+        List<Todo> todos = List.of(Todo.builder().username(username).build());
+        List<TodoResponse> responses = List.of(TodoResponse.builder().build());
+
+        when(jwtUtil.extractUsernameByAuthorization(authorization)).thenReturn(username);
+        when(todoRepository.findByUsername(username, PageRequest.of(0, 10))).thenReturn(Flux.fromIterable(todos));
+        when(todoCounters.get(username)).thenReturn(TodoStatsResponse.builder().total(21).completed(1).open(20).build());
+        when(todoMapper.toResponse(todos)).thenReturn(responses);
+
+        Page<TodoResponse> actual = todoService.getTodos(authorization, 0, 10, TodoFilter.builder().build()).block();
+        assertNotNull(actual);
+        assertEquals(21, actual.getTotalElements());
+        assertEquals(1, actual.getContent().size());
+        verifyNoInteractions(blockingTodoService);
+    }
+
+    @Test
+    void it_should_get_stats() {
+        String authorization = faker.name().name();
+        String username = faker.name().username();
+        TodoStatsResponse stats = TodoStatsResponse.builder().total(3).completed(1).open(2).build();
+
+        when(jwtUtil.extractUsernameByAuthorization(authorization)).thenReturn(username);
+        when(todoCounters.get(username)).thenReturn(stats);
+
+        assertEquals(stats, todoService.getStats(authorization).block());
+    }
+
+    @Test
+    void it_should_retry_completed_update_when_todo_changed_during_update() {
+        String id = faker.name().name();
+        String authorization = faker.name().name();
+        String username = faker.name().username();
+        ReflectionTestUtils.setField(todoService, "updateMaxRetries", 3);
+
+        UpdateTodoRequest request = UpdateTodoRequest.builder().completed(true).build();
+        Todo stale = Todo.builder().id(id).username(username).version(1L).build();
+        Todo latest = Todo.builder().id(id).username(username).version(2L).build();
+        TodoResponse response = TodoResponse.builder().id(id).version(3L).build();
+
+        when(jwtUtil.extractUsernameByAuthorization(authorization)).thenReturn(username);
+        when(todoRepository.findById(id)).thenReturn(Mono.just(stale), Mono.just(latest));
+        when(todoMapper.toEntity(request, stale)).thenReturn(stale);
+        when(todoMapper.toEntity(request, latest)).thenReturn(latest);
+        when(todoRepository.save(stale)).thenReturn(Mono.error(new OptimisticLockingFailureException("CAS mismatch")));
+        when(todoRepository.save(latest)).thenReturn(Mono.just(latest));
+        when(todoMapper.toResponse(latest)).thenReturn(response);
+
+        assertEquals(response, todoService.updateTodo(authorization, id, request).block());
+        verify(todoRepository, times(2)).findById(id);
+        verify(todoCache, times(1)).evict(id);
+        verify(todoCache, times(1)).put(latest);
+    }
+
+    @Test
+    void it_should_evict_deleted_todo_from_cache() {
+        String id = faker.name().name();
+        String authorization = faker.name().name();
+        String username = faker.name().username();
+
+        Todo todo = Todo.builder().id(id).username(username).build();
+
+        when(jwtUtil.extractUsernameByAuthorization(authorization)).thenReturn(username);
+        when(todoRepository.findById(id)).thenReturn(Mono.just(todo));
+        when(todoRepository.deleteById(id)).thenReturn(Mono.empty());
+
+        todoService.deleteTodo(authorization, id).block();
+        verify(todoCache, times(1)).evict(id);
+        verify(todoCounters, times(1)).add(username, -1, 0);
+    }
+
+    @Test
+    void it_should_throw_precondition_failed_exception_when_if_match_does_not_match() {
+        String id = faker.name().name();
+        String authorization = faker.name().name();
+        String username = faker.name().username();
+
+        UpdateTodoRequest request = UpdateTodoRequest.builder().completed(true).build();
+        Todo todo = Todo.builder().id(id).username(username).version(3L).build();
+
+        when(jwtUtil.extractUsernameByAuthorization(authorization)).thenReturn(username);
+        when(todoRepository.findById(id)).thenReturn(Mono.just(todo));
+
+        assertThrows(PreconditionFailedException.class,
+                () -> todoService.updateTodo(authorization, id, request, "\"2\"").block());
+        verify(todoRepository, never()).save(any());
+    }
+
+    @Test
+    void it_should_get_todos_by_cursor() {
+        String authorization = faker.name().name();
+        String username = faker.name().username();
+
+        Todo first = Todo.builder().id("a").username(username).createdDate(1L).build();
+        Todo second = Todo.builder().id("b").username(username).createdDate(2L).build();
+
+        when(jwtUtil.extractUsernameByAuthorization(authorization)).thenReturn(username);
+        when(todoRepository.findFirstSliceByUsername(username, 2)).thenReturn(Flux.just(first, second));
+        when(todoMapper.toResponse(List.of(first))).thenReturn(List.of(TodoResponse.builder().build()));
+
+        SliceResponse<TodoResponse> actual = todoService.getTodosByCursor(authorization, null, 1).block();
+        assertNotNull(actual);
+        assertTrue(actual.isHasNext());
+        assertNotNull(actual.getNextCursor());
+    }
+
+    @Test
+    void it_should_throw_bad_request_exception_when_cursor_is_invalid() {
+        String authorization = faker.name().name();
+
+        when(jwtUtil.extractUsernameByAuthorization(authorization)).thenReturn(faker.name().username());
+
+        assertThrows(BadRequestException.class,
+                () -> todoService.getTodosByCursor(authorization, "!", 10).block());
+    }
+}
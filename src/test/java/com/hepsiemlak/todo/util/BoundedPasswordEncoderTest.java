@@ -0,0 +1,73 @@
+package com.hepsiemlak.todo.util;
+
+import com.hepsiemlak.todo.exception.ServiceUnavailableException;
+import net.datafaker.Faker;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class BoundedPasswordEncoderTest {
+
+    private static final Faker faker = new Faker();
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private final ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1,
+            0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(1));
+
+    private final PasswordEncoder delegate = mock(PasswordEncoder.class);
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        executor.shutdownNow();
+    }
+
+    @Test
+    void it_should_encode_on_executor() {
+        String password = faker.password().toString();
+        when(delegate.encode(password)).thenAnswer(invocation -> Thread.currentThread().getName());
+
+        BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(delegate, executor, Duration.ofSeconds(5));
+
+        assertNotEquals(Thread.currentThread().getName(), encoder.encode(password));
+    }
+
+    @Test
+    void it_should_throw_service_unavailable_exception_when_saturated() {
+        when(delegate.matches(any(), any())).thenAnswer(invocation -> release.await(5, TimeUnit.SECONDS));
+        executor.submit(() -> delegate.matches("", ""));
+        executor.submit(() -> delegate.matches("", ""));
+
+        BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(delegate, executor, Duration.ofSeconds(5));
+
+        ServiceUnavailableException exception = assertThrows(ServiceUnavailableException.class,
+                () -> encoder.matches(faker.password().toString(), faker.password().toString()));
+        assertEquals("Password hashing is saturated", exception.getMessage());
+    }
+
+    @Test
+    void it_should_throw_service_unavailable_exception_when_timed_out() {
+        when(delegate.encode(any())).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return faker.password().toString();
+        });
+
+        BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(delegate, executor, Duration.ofMillis(50));
+
+        ServiceUnavailableException exception = assertThrows(ServiceUnavailableException.class,
+                () -> encoder.encode(faker.password().toString()));
+        assertEquals("Password hashing timed out", exception.getMessage());
+    }
+}
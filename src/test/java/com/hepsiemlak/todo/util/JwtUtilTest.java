@@ -0,0 +1,157 @@
+package com.hepsiemlak.todo.util;
+
+import com.hepsiemlak.todo.exception.UnauthorizedException;
+import com.hepsiemlak.todo.model.user.TokenClaims;
+import net.datafaker.Faker;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.lang.reflect.Field;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtUtilTest {
+
+    private static final Faker faker = new Faker();
+
+    private static final String SECRET = "dGhpcy1pcy1hLXRlc3Qtc2VjcmV0LXdpdGgtYXQtbGVhc3QtMjU2LWJpdHMtb2Yta2V5";
+
+    private static final String NEXT_SECRET = "YW5vdGhlci10ZXN0LXNlY3JldC13aXRoLWF0LWxlYXN0LTI1Ni1iaXRzLW9mLWtleQ==";
+
+    private JwtUtil jwtUtil;
+
+    @BeforeEach
+    void setUp() throws NoSuchFieldException, IllegalAccessException {
+        jwtUtil = new JwtUtil();
+        setField("secret", SECRET);
+        setField("keys", "");
+        setField("activeKeyId", "default");
+        setField("expiration", 60000L);
+        setField("claimsCacheMaximumSize", 100L);
+        jwtUtil.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void it_should_extract_claims_by_authorization() {
+        String username = faker.name().username();
+        Long lastModifiedDate = System.currentTimeMillis();
+
+        String token = jwtUtil.generateToken(username, lastModifiedDate);
+        TokenClaims actual = jwtUtil.extractClaimsByAuthorization("Bearer " + token);
+
+        assertEquals(username, actual.getSubject());
+        assertEquals(lastModifiedDate, actual.getLastModifiedDate());
+        assertTrue(jwtUtil.validateClaims(actual, username, lastModifiedDate));
+    }
+
+    @Test
+    void it_should_reuse_cached_claims_for_same_token() {
+        String token = jwtUtil.generateToken(faker.name().username(), System.currentTimeMillis());
+
+        TokenClaims first = jwtUtil.extractClaimsByToken(token);
+        TokenClaims second = jwtUtil.extractClaimsByAuthorization("Bearer " + token);
+
+        assertSame(first, second);
+    }
+
+    @Test
+    void it_should_read_claims_from_security_context() {
+        String token = jwtUtil.generateToken(faker.name().username(), System.currentTimeMillis());
+        TokenClaims claims = TokenClaims.builder()
+                .token(token)
+                .subject(faker.name().username())
+                .build();
+
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(claims.getSubject(), claims, List.of()));
+
+        assertEquals(claims.getSubject(), jwtUtil.extractUsernameByAuthorization("Bearer " + token));
+    }
+
+    @Test
+    void it_should_not_validate_claims_when_password_changed() {
+        String username = faker.name().username();
+        Long lastModifiedDate = System.currentTimeMillis();
+
+        TokenClaims claims = jwtUtil.extractClaimsByToken(jwtUtil.generateToken(username, lastModifiedDate));
+
+        assertFalse(jwtUtil.validateClaims(claims, username, lastModifiedDate + 1));
+    }
+
+    @Test
+    void it_should_verify_tokens_signed_before_key_rotation() {
+        String username = faker.name().username();
+        String token = jwtUtil.generateToken(username, System.currentTimeMillis());
+
+        jwtUtil.rotateKeys(Map.of("default", SECRET, "next", NEXT_SECRET), "next");
+        String rotatedToken = jwtUtil.generateToken(username, System.currentTimeMillis());
+
+        assertEquals(username, jwtUtil.extractUsernameByToken(token));
+        assertEquals(username, jwtUtil.extractUsernameByToken(rotatedToken));
+    }
+
+    @Test
+    void it_should_throw_unauthorized_exception_when_signing_key_removed() {
+        String token = jwtUtil.generateToken(faker.name().username(), System.currentTimeMillis());
+        jwtUtil.extractClaimsByToken(token);
+
+        jwtUtil.rotateKeys(Map.of("next", NEXT_SECRET), "next");
+
+        UnauthorizedException exception = assertThrows(UnauthorizedException.class,
+                () -> jwtUtil.extractClaimsByToken(token));
+
+        assertEquals("Unknown signing key", exception.getMessage());
+    }
+
+    @Test
+    void it_should_throw_unauthorized_exception_when_token_not_provided() {
+        UnauthorizedException exception = assertThrows(UnauthorizedException.class,
+                () -> jwtUtil.extractClaimsByAuthorization(faker.name().name()));
+
+        assertEquals("No token provided", exception.getMessage());
+    }
+
+    @Test
+    void it_should_reject_key_entries_without_a_separator() throws NoSuchFieldException, IllegalAccessException {
+        setField("keys", "next:" + NEXT_SECRET + "," + NEXT_SECRET);
+
+        IllegalStateException exception = assertThrows(IllegalStateException.class, () -> jwtUtil.init());
+        assertEquals("jwt.keys entry 2 is not of the form id:secret", exception.getMessage());
+    }
+
+    @Test
+    void it_should_reject_key_entries_with_empty_id_or_secret() throws NoSuchFieldException, IllegalAccessException {
+        setField("keys", ":" + NEXT_SECRET);
+        assertEquals("jwt.keys entry 1 has an empty key id",
+                assertThrows(IllegalStateException.class, () -> jwtUtil.init()).getMessage());
+
+        setField("keys", "next:");
+        assertEquals("jwt.keys entry 1 (next) has an empty secret",
+                assertThrows(IllegalStateException.class, () -> jwtUtil.init()).getMessage());
+    }
+
+    @Test
+    void it_should_reject_an_active_key_id_that_is_not_configured() throws NoSuchFieldException, IllegalAccessException {
+        setField("keys", "next:" + NEXT_SECRET);
+        setField("activeKeyId", "missing");
+
+        IllegalStateException exception = assertThrows(IllegalStateException.class, () -> jwtUtil.init());
+        assertTrue(exception.getMessage().startsWith("jwt.active-key-id missing is not one of the configured key ids"));
+    }
+
+    private void setField(String name, Object value) throws NoSuchFieldException, IllegalAccessException {
+        Field field = JwtUtil.class.getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(jwtUtil, value);
+    }
+}